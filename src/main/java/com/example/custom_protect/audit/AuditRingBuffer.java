@@ -0,0 +1,99 @@
+package com.example.custom_protect.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Ограниченный кольцевой буфер без блокировок (схема Вьюкова): много производителей,
+ * один или несколько потребителей. Ёмкость округляется вверх до степени двойки.
+ */
+final class AuditRingBuffer<E> {
+
+    private final Object[] elements;
+    private final AtomicLongArray sequences;
+    private final int mask;
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+
+    AuditRingBuffer(int capacity) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("Ёмкость буфера аудита должна быть не меньше 2");
+        }
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.elements = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    int capacity() {
+        return elements.length;
+    }
+
+    /**
+     * @return {@code false}, если буфер заполнен
+     */
+    boolean offer(E element) {
+        long pos = tail.get();
+        for (;;) {
+            int idx = (int) (pos & mask);
+            long diff = sequences.get(idx) - pos;
+            if (diff == 0) {
+                if (tail.compareAndSet(pos, pos + 1)) {
+                    elements[idx] = element;
+                    sequences.set(idx, pos + 1);
+                    return true;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    E poll() {
+        long pos = head.get();
+        for (;;) {
+            int idx = (int) (pos & mask);
+            long diff = sequences.get(idx) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E element = (E) elements[idx];
+                    elements[idx] = null;
+                    sequences.set(idx, pos + mask + 1);
+                    return element;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    /**
+     * Забирает до {@code max} элементов в {@code target}.
+     *
+     * @return количество перенесённых элементов
+     */
+    int drainTo(List<? super E> target, int max) {
+        int count = 0;
+        E element;
+        while (count < max && (element = poll()) != null) {
+            target.add(element);
+            count++;
+        }
+        return count;
+    }
+
+    boolean isEmpty() {
+        return head.get() >= tail.get();
+    }
+}
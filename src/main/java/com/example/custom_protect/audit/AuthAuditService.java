@@ -0,0 +1,98 @@
+package com.example.custom_protect.audit;
+
+import com.example.custom_protect.model.AuthEvent;
+import com.example.custom_protect.model.en.AuthEventType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Точка публикации событий аудита. Вызывающий поток только кладёт событие в кольцевой буфер,
+ * запись в БД выполняет {@link AuthEventWriter} в фоне.
+ */
+@Service
+@Slf4j
+public class AuthAuditService {
+
+    private static final int MAX_DETAIL_LENGTH = 512;
+
+    private final AuditRingBuffer<AuthEvent> buffer;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutNanos;
+    private final AtomicLong dropped = new AtomicLong();
+
+    public AuthAuditService(@Value("${audit.buffer-capacity:8192}") int capacity,
+                            @Value("${audit.overflow-policy:DROP}") OverflowPolicy overflowPolicy,
+                            @Value("${audit.block-timeout-ms:1000}") long blockTimeoutMs) {
+        this.buffer = new AuditRingBuffer<>(capacity);
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(blockTimeoutMs);
+    }
+
+    public void publish(AuthEventType type, String name, String detail) {
+        publish(type, name, detail, overflowPolicy);
+    }
+
+    /**
+     * Публикация без ожидания места в буфере независимо от {@code audit.overflow-policy}:
+     * для потоков, которые нельзя парковать (event loop реактивного стека).
+     */
+    public void publishNonBlocking(AuthEventType type, String name, String detail) {
+        publish(type, name, detail, OverflowPolicy.DROP);
+    }
+
+    private void publish(AuthEventType type, String name, String detail, OverflowPolicy policy) {
+        if (detail != null && detail.length() > MAX_DETAIL_LENGTH) {
+            detail = detail.substring(0, MAX_DETAIL_LENGTH);
+        }
+        AuthEvent event = AuthEvent.builder()
+                .eventType(type)
+                .name(name)
+                .detail(detail)
+                .createdAt(Instant.now())
+                .build();
+        if (buffer.offer(event)) {
+            return;
+        }
+        if (policy == OverflowPolicy.BLOCK && offerBlocking(event)) {
+            return;
+        }
+        long total = dropped.incrementAndGet();
+        if (Long.bitCount(total) == 1) {
+            log.warn("Буфер аудита переполнен, отброшено событий: {}", total);
+        }
+    }
+
+    /**
+     * Ждёт освобождения места не дольше {@code audit.block-timeout-ms}, чтобы зависший писатель
+     * не остановил обработку запросов навсегда.
+     */
+    private boolean offerBlocking(AuthEvent event) {
+        long deadline = System.nanoTime() + blockTimeoutNanos;
+        while (System.nanoTime() < deadline) {
+            LockSupport.parkNanos(50_000);
+            if (buffer.offer(event)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    int drainTo(List<AuthEvent> target, int max) {
+        return buffer.drainTo(target, max);
+    }
+
+    boolean isEmpty() {
+        return buffer.isEmpty();
+    }
+}
@@ -0,0 +1,122 @@
+package com.example.custom_protect.audit;
+
+import com.example.custom_protect.model.AuthEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Фоновый писатель журнала аудита: выгребает буфер {@link AuthAuditService} и вставляет события
+ * JDBC-пачками. При остановке контекста дописывает всё, что осталось в буфере.
+ */
+@Component
+@Slf4j
+public class AuthEventWriter implements SmartLifecycle {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO auth_events (event_type, name, detail, created_at) VALUES (?, ?, ?, ?)";
+    private static final String PURGE_SQL = "DELETE FROM auth_events WHERE created_at < ?";
+
+    private final AuthAuditService auditService;
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final Duration retention;
+
+    private volatile boolean running;
+    private Thread worker;
+
+    public AuthEventWriter(AuthAuditService auditService,
+                           JdbcTemplate jdbcTemplate,
+                           @Value("${audit.batch-size:500}") int batchSize,
+                           @Value("${audit.flush-interval-ms:200}") long flushIntervalMs,
+                           @Value("${audit.retention-days:90}") long retentionDays) {
+        this.auditService = auditService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.retention = Duration.ofDays(retentionDays);
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::run, "auth-audit-writer");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        Thread t = worker;
+        if (t == null) {
+            return;
+        }
+        LockSupport.unpark(t);
+        try {
+            t.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        worker = null;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Останавливаемся после веб-сервера (чтобы дописать события последних запросов),
+     * но до закрытия DataSource.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    private void run() {
+        List<AuthEvent> batch = new ArrayList<>(batchSize);
+        while (running || !auditService.isEmpty()) {
+            if (auditService.drainTo(batch, batchSize) == 0) {
+                LockSupport.parkNanos(flushIntervalNanos);
+                continue;
+            }
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<AuthEvent> batch) {
+        try {
+            jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(), (ps, event) -> {
+                ps.setString(1, event.getEventType().name());
+                ps.setString(2, event.getName());
+                ps.setString(3, event.getDetail());
+                ps.setTimestamp(4, Timestamp.from(event.getCreatedAt()));
+            });
+        } catch (RuntimeException e) {
+            log.error("Не удалось записать {} событий аудита: {}", batch.size(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${audit.purge-interval-ms:3600000}", initialDelayString = "${audit.purge-interval-ms:3600000}")
+    public void purgeExpired() {
+        int removed = jdbcTemplate.update(PURGE_SQL, Timestamp.from(Instant.now().minus(retention)));
+        if (removed > 0) {
+            log.info("Удалено устаревших событий аудита: {}", removed);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.custom_protect.audit;
+
+/**
+ * Что делать, если буфер аудита заполнен.
+ */
+public enum OverflowPolicy {
+    /** Отбросить событие и увеличить счётчик потерь. */
+    DROP,
+    /** Ждать, пока писатель освободит место. */
+    BLOCK
+}
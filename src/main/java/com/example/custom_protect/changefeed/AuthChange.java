@@ -0,0 +1,29 @@
+package com.example.custom_protect.changefeed;
+
+import com.example.custom_protect.model.en.AuthChangeType;
+
+import java.time.Instant;
+
+/**
+ * Запись ленты {@code auth_changes}. {@code id} назначает БД; у ещё не записанных изменений он равен 0.
+ * {@code tokenId} — идентификатор отозванного JWT или ключ opaque-сессии; {@code roleMask} — роли сессии.
+ */
+public record AuthChange(long id, AuthChangeType type, Long userId, String subject, String tokenId,
+                         Integer roleMask, Instant expiresAt, Instant createdAt) {
+
+    public static AuthChange rolesChanged(long userId, String name) {
+        return new AuthChange(0, AuthChangeType.ROLES_CHANGED, userId, name, null, null, null, Instant.now());
+    }
+
+    public static AuthChange userDeleted(long userId, String name) {
+        return new AuthChange(0, AuthChangeType.USER_DELETED, userId, name, null, null, null, Instant.now());
+    }
+
+    public static AuthChange tokenRevoked(String name, String tokenId, Instant expiresAt) {
+        return new AuthChange(0, AuthChangeType.TOKEN_REVOKED, null, name, tokenId, null, expiresAt, Instant.now());
+    }
+
+    public static AuthChange sessionCreated(long userId, String name, String sessionKey, int roleMask, Instant expiresAt) {
+        return new AuthChange(0, AuthChangeType.SESSION_CREATED, userId, name, sessionKey, roleMask, expiresAt, Instant.now());
+    }
+}
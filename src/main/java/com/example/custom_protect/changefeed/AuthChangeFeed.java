@@ -0,0 +1,330 @@
+package com.example.custom_protect.changefeed;
+
+import com.example.custom_protect.model.en.AuthChangeType;
+import com.example.custom_protect.service.RevokedTokens;
+import com.example.custom_protect.service.RoleCache;
+import com.example.custom_protect.session.SessionStore;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Лента изменений авторизации между узлами поверх общей БД.
+ * <p>
+ * Писатель вставляет записи в {@code auth_changes} в своей транзакции и после коммита сразу
+ * применяет их у себя. Каждый узел раз в {@code changefeed.poll-interval-ms} дочитывает ленту
+ * пачками по {@code id > последнего прочитанного} и применяет к локальному состоянию: кэшу ролей,
+ * списку отозванных токенов и хранилищу opaque-сессий. Применение идемпотентно, поэтому свои же записи читаются повторно без вреда.
+ * <p>
+ * Идентификаторы выдаются при вставке, а видны после коммита, поэтому более ранний id может появиться
+ * позже соседнего. Пропуски в последовательности запоминаются и перечитываются, пока не появятся или
+ * не истечёт {@code changefeed.gap-timeout-ms} (откат транзакции, шаг последовательности).
+ * <p>
+ * Новый узел начинает с записей за последний срок действия токена или сессии, чтобы подхватить
+ * действующие отзывы и сессии.
+ * <p>
+ * Опрос идёт на собственном потоке {@code auth-change-feed}, а не на общем планировщике {@code @Scheduled}:
+ * там же выполняются очистки аудита и ленты и обход таблицы сессий, и долгая очистка задержала бы
+ * распространение изменений дольше {@code changefeed.poll-interval-ms}.
+ */
+@Component
+@Slf4j
+public class AuthChangeFeed {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO auth_changes (change_type, user_id, subject, token_id, role_mask, expires_at, created_at) "
+                    + "VALUES (:type, :userId, :subject, :tokenId, :roleMask, :expiresAt, :createdAt)";
+    private static final String COLUMNS =
+            "SELECT id, change_type, user_id, subject, token_id, role_mask, expires_at, created_at FROM auth_changes ";
+    private static final String SELECT_AFTER_SQL = COLUMNS + "WHERE id > :cursor ORDER BY id FETCH FIRST :limit ROWS ONLY";
+    private static final String SELECT_IN_SQL = COLUMNS + "WHERE id IN (:ids)";
+    private static final String START_CURSOR_SQL = "SELECT COALESCE(MAX(id), 0) FROM auth_changes WHERE created_at < :since";
+    private static final String PURGE_SQL = "DELETE FROM auth_changes WHERE created_at < :before";
+    // сессия действует, если после неё не было отзыва этого токена, смены ролей или удаления пользователя
+    private static final String SELECT_SESSION_SQL =
+            "SELECT s.id, s.change_type, s.user_id, s.subject, s.token_id, s.role_mask, s.expires_at, s.created_at "
+                    + "FROM auth_changes s WHERE s.token_id = :key AND s.change_type = 'SESSION_CREATED' AND s.expires_at > :now "
+                    + "AND NOT EXISTS (SELECT 1 FROM auth_changes r WHERE r.id > s.id AND ("
+                    + "(r.change_type = 'TOKEN_REVOKED' AND r.token_id = s.token_id) "
+                    + "OR (r.change_type IN ('ROLES_CHANGED', 'USER_DELETED') AND r.user_id = s.user_id)))";
+
+    private static final int MAX_TRACKED_GAPS = 10_000;
+    private static final int INSERT_BATCH = 1000;
+
+    private static final RowMapper<AuthChange> ROW_MAPPER = (rs, i) -> {
+        Timestamp expiresAt = rs.getTimestamp("expires_at");
+        return new AuthChange(
+                rs.getLong("id"),
+                AuthChangeType.valueOf(rs.getString("change_type")),
+                rs.getObject("user_id", Long.class),
+                rs.getString("subject"),
+                rs.getString("token_id"),
+                rs.getObject("role_mask", Integer.class),
+                expiresAt == null ? null : expiresAt.toInstant(),
+                rs.getTimestamp("created_at").toInstant());
+    };
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final RoleCache roleCache;
+    private final RevokedTokens revokedTokens;
+    private final SessionStore sessionStore;
+    private final boolean enabled;
+    private final int batchSize;
+    private final long gapTimeoutNanos;
+    private final Duration replayWindow;
+    private final Duration retention;
+    private final Duration deliveryWindow;
+    private final Semaphore sessionLookups;
+    private final long pollIntervalMs;
+    private ScheduledExecutorService poller;
+
+    private long cursor = -1;
+    private final Map<Long, Long> gaps = new LinkedHashMap<>();
+
+    public AuthChangeFeed(NamedParameterJdbcTemplate jdbcTemplate,
+                          RoleCache roleCache,
+                          RevokedTokens revokedTokens,
+                          SessionStore sessionStore,
+                          @Value("${changefeed.enabled:true}") boolean enabled,
+                          @Value("${changefeed.batch-size:500}") int batchSize,
+                          @Value("${changefeed.poll-interval-ms:1000}") long pollIntervalMs,
+                          @Value("${changefeed.gap-timeout-ms:10000}") long gapTimeoutMs,
+                          @Value("${changefeed.session-lookup-concurrency:4}") int sessionLookupConcurrency,
+                          @Value("${jwt.expiration-ms:3600000}") long tokenLifetimeMs,
+                          @Value("${changefeed.retention-ms:86400000}") long retentionMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.roleCache = roleCache;
+        this.revokedTokens = revokedTokens;
+        this.sessionStore = sessionStore;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.gapTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(gapTimeoutMs);
+        this.replayWindow = Duration.ofMillis(Math.max(tokenLifetimeMs, sessionStore.ttl().toMillis()));
+        // записи живут не меньше окна воспроизведения, иначе перезапущенный узел не узнает о действующих сессиях
+        this.retention = Duration.ofMillis(Math.max(retentionMs, replayWindow.toMillis()));
+        this.deliveryWindow = Duration.ofMillis(pollIntervalMs + gapTimeoutMs);
+        this.pollIntervalMs = pollIntervalMs;
+        this.sessionLookups = new Semaphore(sessionLookupConcurrency);
+    }
+
+    /**
+     * Записывает изменения в ленту в текущей транзакции; локально они применяются после коммита.
+     */
+    public void publish(List<AuthChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        for (int from = 0; from < changes.size(); from += INSERT_BATCH) {
+            List<AuthChange> chunk = changes.subList(from, Math.min(from + INSERT_BATCH, changes.size()));
+            jdbcTemplate.batchUpdate(INSERT_SQL, chunk.stream().map(AuthChangeFeed::params).toArray(MapSqlParameterSource[]::new));
+        }
+        afterCommit(() -> apply(changes));
+    }
+
+    /**
+     * Сколько запись может идти до узла: интервал опроса плюс ожидание пропуска в последовательности id.
+     */
+    public Duration deliveryWindow() {
+        return deliveryWindow;
+    }
+
+    /**
+     * Ищет действующую сессию по ключу прямо в ленте — для сессии, выданной другим узлом и ещё
+     * не прочитанной этим. Локальное хранилище не меняется: сессию доставит очередной опрос.
+     * Одновременно выполняется не больше {@code changefeed.session-lookup-concurrency} поисков,
+     * сверх этого сессия считается ненайденной.
+     */
+    public Optional<AuthChange> findSession(String key) {
+        if (!sessionLookups.tryAcquire()) {
+            return Optional.empty();
+        }
+        try {
+            List<AuthChange> sessions = jdbcTemplate.query(SELECT_SESSION_SQL,
+                    new MapSqlParameterSource("key", key).addValue("now", Timestamp.from(Instant.now())), ROW_MAPPER);
+            return sessions.stream().findFirst();
+        } finally {
+            sessionLookups.release();
+        }
+    }
+
+    /**
+     * Догоняет ленту до старта приёма трафика: отзывы, сделанные до запуска узла, действуют сразу.
+     */
+    @EventListener(ApplicationStartedEvent.class)
+    public synchronized void catchUp() {
+        poll();
+        if (enabled && poller == null) {
+            poller = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "auth-change-feed");
+                thread.setDaemon(true);
+                return thread;
+            });
+            poller.scheduleWithFixedDelay(this::pollSafely, pollIntervalMs, pollIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    synchronized void stop() {
+        if (poller != null) {
+            poller.shutdownNow();
+        }
+    }
+
+    private void pollSafely() {
+        try {
+            poll();
+        } catch (RuntimeException e) {
+            // исключение отменило бы все следующие запуски scheduleWithFixedDelay
+            log.warn("Ошибка чтения ленты изменений: {}", e.getMessage(), e);
+        }
+    }
+
+    public synchronized void poll() {
+        if (!enabled) {
+            return;
+        }
+        if (cursor < 0) {
+            cursor = jdbcTemplate.queryForObject(START_CURSOR_SQL,
+                    new MapSqlParameterSource("since", Timestamp.from(Instant.now().minus(replayWindow))), Long.class);
+        }
+        int applied = 0;
+        List<AuthChange> batch;
+        do {
+            batch = jdbcTemplate.query(SELECT_AFTER_SQL,
+                    new MapSqlParameterSource("cursor", cursor).addValue("limit", batchSize), ROW_MAPPER);
+            for (AuthChange change : batch) {
+                trackGap(change.id());
+                cursor = change.id();
+            }
+            apply(batch);
+            applied += batch.size();
+        } while (batch.size() == batchSize);
+        applied += recheckGaps();
+        if (applied > 0) {
+            log.debug("Применено изменений из ленты: {}, позиция {}", applied, cursor);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${changefeed.purge-interval-ms:3600000}")
+    public void purge() {
+        int deleted = jdbcTemplate.update(PURGE_SQL,
+                new MapSqlParameterSource("before", Timestamp.from(Instant.now().minus(retention))));
+        if (deleted > 0) {
+            log.info("Удалено устаревших записей ленты изменений: {}", deleted);
+        }
+    }
+
+    private void trackGap(long id) {
+        long deadline = System.nanoTime() + gapTimeoutNanos;
+        for (long missing = cursor + 1; missing < id && gaps.size() < MAX_TRACKED_GAPS; missing++) {
+            gaps.put(missing, deadline);
+        }
+    }
+
+    private int recheckGaps() {
+        if (gaps.isEmpty()) {
+            return 0;
+        }
+        List<AuthChange> late = jdbcTemplate.query(SELECT_IN_SQL,
+                new MapSqlParameterSource("ids", new ArrayList<>(gaps.keySet())), ROW_MAPPER);
+        late.forEach(change -> gaps.remove(change.id()));
+        apply(late);
+        long now = System.nanoTime();
+        gaps.values().removeIf(deadline -> deadline - now <= 0);
+        return late.size();
+    }
+
+    private void apply(List<AuthChange> changes) {
+        if (changes.isEmpty()) {
+            return;
+        }
+        List<String> rolesChanged = new ArrayList<>();
+        Set<Long> droppedUsers = new HashSet<>();
+        for (AuthChange change : changes) {
+            switch (change.type()) {
+                case ROLES_CHANGED -> {
+                    rolesChanged.add(change.subject());
+                    addUser(droppedUsers, change);
+                }
+                case USER_DELETED -> {
+                    rolesChanged.add(change.subject());
+                    addUser(droppedUsers, change);
+                    revokedTokens.revokeSubject(change.subject(), change.createdAt());
+                }
+                case TOKEN_REVOKED -> {
+                    revokedTokens.revokeToken(change.tokenId(), change.expiresAt());
+                    sessionStore.remove(change.tokenId());
+                }
+                case SESSION_CREATED -> {
+                    // сессия, выданная после смены ролей, не должна попасть под сброс из той же пачки
+                    if (droppedUsers.remove(change.userId())) {
+                        sessionStore.dropUsers(List.of(change.userId()));
+                    }
+                    // заполненное хранилище не должно останавливать остальные изменения, в том числе отзывы
+                    if (!sessionStore.put(change.tokenId(), change.userId(), change.subject(), change.roleMask(), change.expiresAt())) {
+                        log.warn("Хранилище сессий заполнено, сессия {} не сохранена: увеличьте session.capacity", change.tokenId());
+                    }
+                }
+            }
+        }
+        // сессии пользователей сбрасываются одним проходом по таблице на пачку
+        sessionStore.dropUsers(droppedUsers);
+        roleCache.invalidate(rolesChanged);
+    }
+
+    private static void addUser(Set<Long> users, AuthChange change) {
+        if (change.userId() != null) {
+            users.add(change.userId());
+        }
+    }
+
+    private static MapSqlParameterSource params(AuthChange change) {
+        Map<String, Object> values = new HashMap<>();
+        values.put("type", change.type().name());
+        values.put("userId", change.userId());
+        values.put("subject", change.subject());
+        values.put("tokenId", change.tokenId());
+        values.put("roleMask", change.roleMask());
+        values.put("expiresAt", change.expiresAt() == null ? null : Timestamp.from(change.expiresAt()));
+        values.put("createdAt", Timestamp.from(change.createdAt()));
+        return new MapSqlParameterSource(values);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
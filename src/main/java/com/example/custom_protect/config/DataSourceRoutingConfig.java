@@ -0,0 +1,51 @@
+package com.example.custom_protect.config;
+
+import com.example.custom_protect.datasource.DataSourceType;
+import com.example.custom_protect.datasource.RoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.Map;
+
+/**
+ * Два пула Hikari (основная БД и реплика) за маршрутизирующим DataSource.
+ * Включается свойством {@code routing.datasource.enabled=true}; настройки каждого пула —
+ * в {@code routing.datasource.primary.*} и {@code routing.datasource.replica.*}.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "routing.datasource", name = "enabled", havingValue = "true")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("routing.datasource.primary")
+    public HikariDataSource primaryDataSource() {
+        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("routing.datasource.replica")
+    public HikariDataSource replicaDataSource() {
+        return DataSourceBuilder.create().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        RoutingDataSource routing = new RoutingDataSource();
+        routing.setTargetDataSources(Map.of(
+                DataSourceType.PRIMARY, primary,
+                DataSourceType.REPLICA, replica));
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+        return new LazyConnectionDataSourceProxy(routing);
+    }
+}
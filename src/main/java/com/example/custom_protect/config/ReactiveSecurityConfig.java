@@ -0,0 +1,113 @@
+package com.example.custom_protect.config;
+
+import com.example.custom_protect.audit.AuthAuditService;
+import com.example.custom_protect.jwt.JwtUtils;
+import com.example.custom_protect.reactive.ReactiveAuthService;
+import com.example.custom_protect.reactive.ReactiveCurrentUserArgumentResolver;
+import com.example.custom_protect.reactive.ReactiveJwtAuthFilter;
+import com.example.custom_protect.reactive.ReactiveUserRepository;
+import com.example.custom_protect.service.AuthService;
+import com.example.custom_protect.service.RevokedTokens;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.pool.ConnectionPoolConfiguration;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * Реактивный стек: включается, когда приложение запущено как WebFlux
+ * ({@code spring.main.web-application-type=reactive}). Чтения пользователей идут через R2DBC
+ * ({@code reactive.r2dbc.*}), сверка паролей — на отдельном ограниченном пуле
+ * ({@code reactive.password-hash.*}), чтобы не блокировать event loop. Тот же пул обслуживает
+ * остальные блокирующие вызовы (регистрация через JPA, интроспекция).
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveSecurityConfig implements WebFluxConfigurer {
+
+    private ConnectionPool connectionPool;
+
+    /**
+     * {@link ConnectionFactory} намеренно не публикуется бином: при его наличии Spring Boot
+     * отключает автоконфигурацию JDBC DataSource, а JPA и аудит по-прежнему работают через JDBC.
+     * Соединения берутся из пула {@code reactive.r2dbc.pool.*}, а не открываются на каждый запрос.
+     */
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(@Value("${reactive.r2dbc.url}") String url,
+                                                 @Value("${reactive.r2dbc.username:sa}") String username,
+                                                 @Value("${reactive.r2dbc.password:}") String password,
+                                                 @Value("${reactive.r2dbc.pool.initial-size:2}") int initialSize,
+                                                 @Value("${reactive.r2dbc.pool.max-size:10}") int maxSize) {
+        ConnectionFactory connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build());
+        connectionPool = new ConnectionPool(ConnectionPoolConfiguration.builder(connectionFactory)
+                .name("reactive-pool")
+                .initialSize(initialSize)
+                .maxSize(maxSize)
+                .build());
+        return DatabaseClient.create(connectionPool);
+    }
+
+    @PreDestroy
+    public void closeConnectionPool() {
+        if (connectionPool != null) {
+            connectionPool.dispose();
+        }
+    }
+
+    /**
+     * Без этого бина при {@code spring-boot-starter-web} в classpath Boot поднял бы реактивный стек
+     * поверх Tomcat: фабрика Tomcat проверяется раньше Netty.
+     */
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler passwordHashScheduler(@Value("${reactive.password-hash.threads:4}") int threads,
+                                           @Value("${reactive.password-hash.queue:1000}") int queue) {
+        return Schedulers.newBoundedElastic(threads, queue, "password-hash");
+    }
+
+    @Bean
+    public ReactiveUserRepository reactiveUserRepository(DatabaseClient reactiveDatabaseClient) {
+        return new ReactiveUserRepository(reactiveDatabaseClient);
+    }
+
+    @Bean
+    public ReactiveAuthService reactiveAuthService(ReactiveUserRepository reactiveUserRepository, JwtUtils jwtUtils,
+                                                   AuthAuditService auditService, Scheduler passwordHashScheduler) {
+        return new ReactiveAuthService(reactiveUserRepository, jwtUtils, auditService, passwordHashScheduler);
+    }
+
+    @Bean
+    public ReactiveJwtAuthFilter reactiveJwtAuthFilter(
+            @Qualifier("requestMappingHandlerMapping") RequestMappingHandlerMapping handlerMapping,
+            JwtUtils jwtUtils, AuthService authService, ReactiveUserRepository reactiveUserRepository,
+            RevokedTokens revokedTokens, AuthAuditService auditService, ObjectMapper objectMapper) {
+        return new ReactiveJwtAuthFilter(handlerMapping, jwtUtils, authService, reactiveUserRepository,
+                revokedTokens, auditService, objectMapper);
+    }
+
+    @Override
+    public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+        configurer.addCustomResolver(new ReactiveCurrentUserArgumentResolver());
+    }
+}
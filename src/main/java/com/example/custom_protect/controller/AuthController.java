@@ -1,23 +1,35 @@
 package com.example.custom_protect.controller;
 
+import com.example.custom_protect.dto.IntrospectRequest;
 import com.example.custom_protect.dto.LoginRequest;
 import com.example.custom_protect.dto.RegisterRequest;
+import com.example.custom_protect.dto.TokenIntrospection;
+import com.example.custom_protect.security.AuthenticatedUser;
+import com.example.custom_protect.security.CurrentUser;
+import com.example.custom_protect.security.JwtAuth;
+import com.example.custom_protect.security.JwtAuthWithRoles;
 import com.example.custom_protect.service.AuthService;
+import com.example.custom_protect.service.IntrospectionService;
 import com.example.custom_protect.service.UserService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/auth")
 @RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class AuthController {
 
     private final UserService userService;
     private final AuthService authService;
+    private final IntrospectionService introspectionService;
 
 
     @PostMapping("/register")
@@ -30,5 +42,18 @@ public class AuthController {
         return authService.authenticate(request);
     }
 
+    @PostMapping("/introspect")
+    @JwtAuthWithRoles(allowedRoles = {"ROLE_INTROSPECT", "ROLE_ADMIN"})
+    public ResponseEntity<List<TokenIntrospection>> introspect(@RequestBody IntrospectRequest request) {
+        return ResponseEntity.ok(introspectionService.introspect(request.tokens()));
+    }
+
+    @PostMapping("/logout")
+    @JwtAuth
+    public ResponseEntity<Void> logout(@CurrentUser AuthenticatedUser user) {
+        authService.logout(user);
+        return ResponseEntity.noContent().build();
+    }
+
 
 }
\ No newline at end of file
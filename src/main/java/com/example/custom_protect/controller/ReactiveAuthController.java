@@ -0,0 +1,56 @@
+package com.example.custom_protect.controller;
+
+import com.example.custom_protect.dto.IntrospectRequest;
+import com.example.custom_protect.dto.LoginRequest;
+import com.example.custom_protect.dto.RegisterRequest;
+import com.example.custom_protect.dto.TokenIntrospection;
+import com.example.custom_protect.reactive.ReactiveAuthService;
+import com.example.custom_protect.security.JwtAuthWithRoles;
+import com.example.custom_protect.service.IntrospectionService;
+import com.example.custom_protect.service.UserService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.List;
+
+/**
+ * WebFlux-версия {@link AuthController} с теми же путями. Логин полностью неблокирующий;
+ * регистрация и интроспекция пока идут через JPA и выносятся на ограниченный пул
+ * {@code reactive.password-hash.*} (очередь с отказом, а не безразмерный {@code boundedElastic}).
+ */
+@RestController
+@RequestMapping("/api/v1/auth")
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveAuthController {
+
+    private final ReactiveAuthService reactiveAuthService;
+    private final UserService userService;
+    private final IntrospectionService introspectionService;
+    private final Scheduler passwordHashScheduler;
+
+    @PostMapping("/register")
+    public Mono<ResponseEntity<String>> register(@RequestBody RegisterRequest request) {
+        return Mono.fromCallable(() -> userService.registerUser(request))
+                .subscribeOn(passwordHashScheduler);
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<String>> login(@RequestBody LoginRequest request) {
+        return reactiveAuthService.authenticate(request).map(ResponseEntity::ok);
+    }
+
+    @PostMapping("/introspect")
+    @JwtAuthWithRoles(allowedRoles = {"ROLE_INTROSPECT", "ROLE_ADMIN"})
+    public Mono<ResponseEntity<List<TokenIntrospection>>> introspect(@RequestBody IntrospectRequest request) {
+        return Mono.fromCallable(() -> ResponseEntity.ok(introspectionService.introspect(request.tokens())))
+                .subscribeOn(passwordHashScheduler);
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.custom_protect.controller;
+
+import com.example.custom_protect.dto.RoleChangeRequest;
+import com.example.custom_protect.dto.RoleChangeResult;
+import com.example.custom_protect.security.AuthenticatedUser;
+import com.example.custom_protect.security.CurrentUser;
+import com.example.custom_protect.security.JwtAuthWithRoles;
+import com.example.custom_protect.service.RoleAdminService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/v1/admin/roles")
+@RequiredArgsConstructor
+@JwtAuthWithRoles(allowedRoles = {"ROLE_ADMIN"})
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class RoleAdminController {
+
+    private final RoleAdminService roleAdminService;
+
+    @PostMapping("/grant")
+    public ResponseEntity<RoleChangeResult> grant(@RequestBody RoleChangeRequest request,
+                                                  @CurrentUser AuthenticatedUser admin) {
+        return ResponseEntity.ok(roleAdminService.grant(request, admin.name()));
+    }
+
+    @PostMapping("/revoke")
+    public ResponseEntity<RoleChangeResult> revoke(@RequestBody RoleChangeRequest request,
+                                                   @CurrentUser AuthenticatedUser admin) {
+        return ResponseEntity.ok(roleAdminService.revoke(request, admin.name()));
+    }
+}
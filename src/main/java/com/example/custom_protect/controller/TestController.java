@@ -1,5 +1,7 @@
 package com.example.custom_protect.controller;
 
+import com.example.custom_protect.security.AuthenticatedUser;
+import com.example.custom_protect.security.CurrentUser;
 import com.example.custom_protect.security.JwtAuth;
 import com.example.custom_protect.security.JwtAuthWithRoles;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -32,4 +34,10 @@ public class TestController {
     public String userOrAdminEndpoint() {
         return "This is available to USER or ADMIN";
     }
+
+    @GetMapping("/me")
+    @JwtAuthWithRoles(allowedRoles = {"ROLE_USER", "ROLE_ADMIN"})
+    public AuthenticatedUser me(@CurrentUser AuthenticatedUser user) {
+        return user;
+    }
 }
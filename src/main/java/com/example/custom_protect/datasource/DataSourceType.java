@@ -0,0 +1,6 @@
+package com.example.custom_protect.datasource;
+
+public enum DataSourceType {
+    PRIMARY,
+    REPLICA
+}
@@ -0,0 +1,53 @@
+package com.example.custom_protect.datasource;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Запрос с cookie-маркером недавней записи ({@link ReadYourWritesGuard#COOKIE}) целиком читает
+ * основную БД: так регистрация на одном узле и вход на другом не упираются в отстающую реплику.
+ */
+@Component
+@RequiredArgsConstructor
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    private final ReadYourWritesGuard guard;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (!guard.isWithinWindow(marker(request)) || ReadYourWritesGuard.isPinnedToPrimary()) {
+            chain.doFilter(request, response);
+            return;
+        }
+        ReadYourWritesGuard.pin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadYourWritesGuard.unpin();
+        }
+    }
+
+    private static String marker(HttpServletRequest request) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (ReadYourWritesGuard.COOKIE.equals(cookie.getName())) {
+                return cookie.getValue();
+            }
+        }
+        return null;
+    }
+}
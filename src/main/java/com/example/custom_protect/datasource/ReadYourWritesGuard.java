@@ -0,0 +1,125 @@
+package com.example.custom_protect.datasource;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseCookie;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Гарантия read-your-writes: пока реплика могла не догнать запись о пользователе
+ * (окно {@code routing.datasource.read-your-writes-ms}), чтения по этому ключу идут в основную БД.
+ * <p>
+ * Ключи помнит только этот узел. Чтобы гарантия работала и за балансировщиком, клиенту после записи
+ * отдаётся cookie {@value #COOKIE} со временем записи: {@link ReadYourWritesFilter} на любом узле
+ * отправляет запросы с такой cookie в основную БД, пока окно не закрылось.
+ */
+@Component
+public class ReadYourWritesGuard {
+
+    public static final String COOKIE = "rywt";
+
+    private static final ThreadLocal<Boolean> PINNED = new ThreadLocal<>();
+    // допуск на расхождение часов узлов
+    private static final long CLOCK_SKEW_MS = 1000;
+
+    private final long windowMs;
+    private final long windowNanos;
+    private final Map<String, Long> recentWrites = new ConcurrentHashMap<>();
+
+    public ReadYourWritesGuard(@Value("${routing.datasource.read-your-writes-ms:5000}") long windowMs) {
+        this.windowMs = windowMs;
+        this.windowNanos = TimeUnit.MILLISECONDS.toNanos(windowMs);
+    }
+
+    static boolean isPinnedToPrimary() {
+        return PINNED.get() != null;
+    }
+
+    public void markWritten(String key) {
+        if (windowNanos > 0) {
+            recentWrites.put(key, System.nanoTime() + windowNanos);
+        }
+    }
+
+    /**
+     * Cookie-маркер записи для клиента: живёт ровно окно read-your-writes.
+     */
+    public ResponseCookie writeMarker() {
+        return ResponseCookie.from(COOKIE, Long.toString(System.currentTimeMillis()))
+                .path("/")
+                .httpOnly(true)
+                .sameSite("Lax")
+                .maxAge(Duration.ofMillis(windowMs))
+                .build();
+    }
+
+    /**
+     * Записал ли клиент что-то в пределах окна. Подделанный маркер лишь переводит чтения
+     * клиента на основную БД не дольше окна, поэтому не проверяется.
+     */
+    boolean isWithinWindow(String marker) {
+        if (marker == null || windowMs <= 0) {
+            return false;
+        }
+        long writtenAt;
+        try {
+            writtenAt = Long.parseLong(marker);
+        } catch (NumberFormatException e) {
+            return false;
+        }
+        long age = System.currentTimeMillis() - writtenAt;
+        return age >= -CLOCK_SKEW_MS && age < windowMs + CLOCK_SKEW_MS;
+    }
+
+    static void pin() {
+        PINNED.set(Boolean.TRUE);
+    }
+
+    static void unpin() {
+        PINNED.remove();
+    }
+
+    public <T> T read(String key, Supplier<T> query) {
+        return isRecentlyWritten(key) ? readPrimary(query) : query.get();
+    }
+
+    /**
+     * Чтение из основной БД независимо от окна — для данных, которые после чтения расходятся
+     * по всем узлам и не перечитываются.
+     */
+    public <T> T readPrimary(Supplier<T> query) {
+        if (isPinnedToPrimary()) {
+            return query.get();
+        }
+        pin();
+        try {
+            return query.get();
+        } finally {
+            unpin();
+        }
+    }
+
+    private boolean isRecentlyWritten(String key) {
+        Long deadline = key == null ? null : recentWrites.get(key);
+        if (deadline == null) {
+            return false;
+        }
+        if (deadline - System.nanoTime() > 0) {
+            return true;
+        }
+        recentWrites.remove(key, deadline);
+        return false;
+    }
+
+    @Scheduled(fixedDelayString = "${routing.datasource.read-your-writes-ms:5000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        recentWrites.values().removeIf(deadline -> deadline - now <= 0);
+    }
+}
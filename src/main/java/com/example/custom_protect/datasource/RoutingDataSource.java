@@ -0,0 +1,22 @@
+package com.example.custom_protect.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Отправляет {@code @Transactional(readOnly = true)} на реплику, всё остальное — на основную БД.
+ * Должен оборачиваться в {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * иначе соединение берётся раньше, чем транзакция помечается как read-only.
+ */
+public class RoutingDataSource extends AbstractRoutingDataSource {
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (ReadYourWritesGuard.isPinnedToPrimary()) {
+            return DataSourceType.PRIMARY;
+        }
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                ? DataSourceType.REPLICA
+                : DataSourceType.PRIMARY;
+    }
+}
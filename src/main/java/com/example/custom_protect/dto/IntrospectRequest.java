@@ -0,0 +1,5 @@
+package com.example.custom_protect.dto;
+
+import java.util.List;
+
+public record IntrospectRequest(List<String> tokens) {}
@@ -1,3 +1,13 @@
 package com.example.custom_protect.dto;
 
-public record LoginRequest(String name, String password) {}
\ No newline at end of file
+import com.example.custom_protect.model.en.TokenType;
+
+/**
+ * @param tokenType тип выдаваемого токена, по умолчанию {@link TokenType#JWT}
+ */
+public record LoginRequest(String name, String password, TokenType tokenType) {
+
+    public LoginRequest(String name, String password) {
+        this(name, password, null);
+    }
+}
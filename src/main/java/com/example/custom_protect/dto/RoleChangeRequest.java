@@ -0,0 +1,16 @@
+package com.example.custom_protect.dto;
+
+import com.example.custom_protect.model.en.RoleType;
+
+import java.util.List;
+
+/**
+ * Выдача или отзыв роли: либо явный список имён {@code names}, либо {@code filter}.
+ */
+public record RoleChangeRequest(RoleType role, List<String> names, UserFilter filter) {
+
+    /**
+     * Критерии отбора пользователей; заданные условия объединяются через AND.
+     */
+    public record UserFilter(String namePrefix, String emailDomain) {}
+}
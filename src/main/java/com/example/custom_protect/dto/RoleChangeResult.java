@@ -0,0 +1,8 @@
+package com.example.custom_protect.dto;
+
+import com.example.custom_protect.model.en.RoleType;
+
+/**
+ * {@code affected} — сколько пользователей реально изменилось; повтор того же запроса даёт 0.
+ */
+public record RoleChangeResult(RoleType role, int affected) {}
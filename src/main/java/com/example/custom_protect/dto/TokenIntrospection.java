@@ -0,0 +1,13 @@
+package com.example.custom_protect.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record TokenIntrospection(boolean active, String sub, List<String> roles, Long exp) {
+
+    public static TokenIntrospection inactive() {
+        return new TokenIntrospection(false, null, null, null);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.custom_protect.dto;
+
+import com.example.custom_protect.model.en.RoleType;
+
+/**
+ * Пара «имя пользователя — роль»; {@code authority} равен null у пользователя без ролей.
+ */
+public interface UserRoleView {
+    String getName();
+
+    RoleType getAuthority();
+}
@@ -0,0 +1,316 @@
+package com.example.custom_protect.jwt;
+
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.security.SignatureException;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Arrays;
+import java.util.Optional;
+
+/**
+ * Быстрый путь для токенов нашей фиксированной формы: HS256, заголовок {@code {"alg":"HS256"}},
+ * полезная нагрузка {@code {"sub":...,"iat":...,"exp":...}}. Выдаёт токены, побайтно совпадающие
+ * с jjwt, но без карт claims, Jackson и нового {@link Mac} на каждую операцию: у каждого потока
+ * свой {@code Mac} и свои буферы.
+ *
+ * <p>Токены другой формы {@link #verify} не разбирает (возвращает пустой Optional) — их проверяет jjwt.
+ */
+final class Hs256TokenEngine {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int SIGNATURE_LENGTH = 32;
+    private static final byte[] BASE64_URL =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEADER = base64Url("{\"alg\":\"HS256\"}".getBytes(StandardCharsets.UTF_8));
+    private static final String HEADER_STRING = new String(HEADER, StandardCharsets.ISO_8859_1);
+    private static final int[] BASE64_URL_REVERSE = new int[128];
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    static {
+        Arrays.fill(BASE64_URL_REVERSE, -1);
+        for (int i = 0; i < BASE64_URL.length; i++) {
+            BASE64_URL_REVERSE[BASE64_URL[i]] = i;
+        }
+    }
+
+    record VerifiedToken(String subject, long issuedAtSeconds, long expiresAtSeconds) {
+    }
+
+    private final ThreadLocal<State> state;
+
+    Hs256TokenEngine(byte[] key) {
+        SecretKeySpec spec = new SecretKeySpec(key.clone(), ALGORITHM);
+        this.state = ThreadLocal.withInitial(() -> new State(spec));
+    }
+
+    String create(String subject, long issuedAtMillis, long expirationMillis) {
+        State s = state.get();
+        StringBuilder json = s.json;
+        json.setLength(0);
+        json.append('{');
+        if (hasText(subject)) {
+            // jjwt, как и здесь, не пишет пустой sub
+            json.append("\"sub\":");
+            appendJsonString(json, subject);
+            json.append(',');
+        }
+        json.append("\"iat\":").append(issuedAtMillis / 1000)
+                .append(",\"exp\":").append(expirationMillis / 1000)
+                .append('}');
+        byte[] payload = json.toString().getBytes(StandardCharsets.UTF_8);
+
+        byte[] out = s.ensureCapacity(HEADER.length + 1 + encodedLength(payload.length) + 1 + encodedLength(SIGNATURE_LENGTH));
+        System.arraycopy(HEADER, 0, out, 0, HEADER.length);
+        int pos = HEADER.length;
+        out[pos++] = '.';
+        pos = encode(payload, payload.length, out, pos);
+
+        Mac mac = s.mac;
+        mac.update(out, 0, pos);
+        byte[] signature = mac.doFinal();
+        out[pos++] = '.';
+        pos = encode(signature, signature.length, out, pos);
+        return new String(out, 0, pos, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Проверяет подпись и разбирает полезную нагрузку. Срок действия не проверяет.
+     *
+     * @return пустой Optional, если токен не нашей формы
+     * @throws SignatureException   если подпись не совпала
+     * @throws MalformedJwtException если токен не является JWS
+     */
+    Optional<VerifiedToken> verify(String token) {
+        int firstDot = token.indexOf('.');
+        int secondDot = firstDot < 0 ? -1 : token.indexOf('.', firstDot + 1);
+        if (secondDot < 0 || token.indexOf('.', secondDot + 1) >= 0) {
+            throw new MalformedJwtException("JWT должен состоять из трёх частей");
+        }
+        if (firstDot != HEADER.length || !token.startsWith(HEADER_STRING)) {
+            return Optional.empty();
+        }
+
+        State s = state.get();
+        byte[] signed = s.ensureCapacity(secondDot);
+        for (int i = 0; i < secondDot; i++) {
+            char c = token.charAt(i);
+            if (c > 0x7F) {
+                throw new MalformedJwtException("Недопустимый символ в JWT");
+            }
+            signed[i] = (byte) c;
+        }
+
+        byte[] expected = s.signature;
+        if (decode(token, secondDot + 1, token.length(), expected, 0) != SIGNATURE_LENGTH) {
+            throw new SignatureException("Подпись JWT имеет неверную длину");
+        }
+        Mac mac = s.mac;
+        mac.update(signed, 0, secondDot);
+        if (!MessageDigest.isEqual(mac.doFinal(), expected)) {
+            throw new SignatureException("Подпись JWT не совпадает");
+        }
+
+        // подпись сошлась — буфер подписанной части свободен и вмещает декодированную полезную нагрузку
+        int length = decode(token, firstDot + 1, secondDot, signed, 0);
+        return parsePayload(new String(signed, 0, length, StandardCharsets.UTF_8));
+    }
+
+    private static Optional<VerifiedToken> parsePayload(String json) {
+        String prefix = "{\"sub\":\"";
+        if (!json.startsWith(prefix)) {
+            return Optional.empty();
+        }
+        StringBuilder subject = new StringBuilder();
+        int i = prefix.length();
+        for (; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (c == '"') {
+                break;
+            }
+            if (c != '\\') {
+                subject.append(c);
+                continue;
+            }
+            if (++i >= json.length()) {
+                return Optional.empty();
+            }
+            char e = json.charAt(i);
+            switch (e) {
+                case '"', '\\', '/' -> subject.append(e);
+                case 'b' -> subject.append('\b');
+                case 'f' -> subject.append('\f');
+                case 'n' -> subject.append('\n');
+                case 'r' -> subject.append('\r');
+                case 't' -> subject.append('\t');
+                case 'u' -> {
+                    if (i + 4 >= json.length()) {
+                        return Optional.empty();
+                    }
+                    try {
+                        subject.append((char) Integer.parseInt(json, i + 1, i + 5, 16));
+                    } catch (NumberFormatException ex) {
+                        return Optional.empty();
+                    }
+                    i += 4;
+                }
+                default -> {
+                    return Optional.empty();
+                }
+            }
+        }
+        String rest = json.substring(Math.min(i + 1, json.length()));
+        String iatKey = ",\"iat\":";
+        String expKey = ",\"exp\":";
+        int expAt = rest.indexOf(expKey);
+        if (!rest.startsWith(iatKey) || expAt < 0 || !rest.endsWith("}")) {
+            return Optional.empty();
+        }
+        try {
+            long iat = Long.parseLong(rest, iatKey.length(), expAt, 10);
+            long exp = Long.parseLong(rest, expAt + expKey.length(), rest.length() - 1, 10);
+            return Optional.of(new VerifiedToken(subject.toString(), iat, exp));
+        } catch (NumberFormatException ex) {
+            return Optional.empty();
+        }
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+
+    /**
+     * Экранирование как у сериализатора jjwt-jackson: кавычка, обратный слеш, управляющие символы
+     * и суррогатные пары (они пишутся как шестнадцатеричные escape-последовательности).
+     */
+    private static void appendJsonString(StringBuilder sb, String value) {
+        sb.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\b' -> sb.append("\\b");
+                case '\f' -> sb.append("\\f");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20 || Character.isSurrogate(c)) {
+                        sb.append("\\u")
+                                .append(HEX[c >> 12]).append(HEX[c >> 8 & 0xF])
+                                .append(HEX[c >> 4 & 0xF]).append(HEX[c & 0xF]);
+                    } else {
+                        sb.append(c);
+                    }
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+    private static int encodedLength(int length) {
+        return (length * 4 + 2) / 3;
+    }
+
+    private static byte[] base64Url(byte[] src) {
+        byte[] out = new byte[encodedLength(src.length)];
+        encode(src, src.length, out, 0);
+        return out;
+    }
+
+    /**
+     * base64url без выравнивания.
+     *
+     * @return позиция в {@code dst} после записанных символов
+     */
+    private static int encode(byte[] src, int length, byte[] dst, int pos) {
+        int i = 0;
+        for (; i + 2 < length; i += 3) {
+            int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i + 2] & 0xFF);
+            dst[pos++] = BASE64_URL[bits >>> 18];
+            dst[pos++] = BASE64_URL[bits >>> 12 & 0x3F];
+            dst[pos++] = BASE64_URL[bits >>> 6 & 0x3F];
+            dst[pos++] = BASE64_URL[bits & 0x3F];
+        }
+        int remaining = length - i;
+        if (remaining == 1) {
+            int bits = (src[i] & 0xFF) << 16;
+            dst[pos++] = BASE64_URL[bits >>> 18];
+            dst[pos++] = BASE64_URL[bits >>> 12 & 0x3F];
+        } else if (remaining == 2) {
+            int bits = (src[i] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8;
+            dst[pos++] = BASE64_URL[bits >>> 18];
+            dst[pos++] = BASE64_URL[bits >>> 12 & 0x3F];
+            dst[pos++] = BASE64_URL[bits >>> 6 & 0x3F];
+        }
+        return pos;
+    }
+
+    /**
+     * @return количество декодированных байт, или -1, если строка не base64url либо не помещается в {@code dst}
+     */
+    private static int decode(String src, int from, int to, byte[] dst, int pos) {
+        int start = pos;
+        int bits = 0;
+        int count = 0;
+        for (int i = from; i < to; i++) {
+            char c = src.charAt(i);
+            int v = c < 128 ? BASE64_URL_REVERSE[c] : -1;
+            if (v < 0) {
+                throw new MalformedJwtException("Недопустимый символ base64url в JWT");
+            }
+            bits = bits << 6 | v;
+            if (++count == 4) {
+                if (pos + 3 > dst.length) {
+                    return -1;
+                }
+                dst[pos++] = (byte) (bits >>> 16);
+                dst[pos++] = (byte) (bits >>> 8);
+                dst[pos++] = (byte) bits;
+                bits = 0;
+                count = 0;
+            }
+        }
+        if (count == 1) {
+            throw new MalformedJwtException("Некорректная длина base64url в JWT");
+        }
+        int tail = count == 0 ? 0 : count - 1;
+        if (pos + tail > dst.length) {
+            return -1;
+        }
+        if (count == 2) {
+            dst[pos++] = (byte) (bits >>> 4);
+        } else if (count == 3) {
+            dst[pos++] = (byte) (bits >>> 10);
+            dst[pos++] = (byte) (bits >>> 2);
+        }
+        return pos - start;
+    }
+
+    private static final class State {
+        private final Mac mac;
+        private final StringBuilder json = new StringBuilder(128);
+        private final byte[] signature = new byte[SIGNATURE_LENGTH];
+        private byte[] buffer = new byte[256];
+
+        private State(SecretKeySpec key) {
+            try {
+                this.mac = Mac.getInstance(ALGORITHM);
+                this.mac.init(key);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 недоступен", e);
+            }
+        }
+
+        private byte[] ensureCapacity(int size) {
+            if (buffer.length < size) {
+                buffer = new byte[Math.max(size, buffer.length * 2)];
+            }
+            return buffer;
+        }
+    }
+}
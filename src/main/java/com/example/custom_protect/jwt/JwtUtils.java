@@ -1,10 +1,12 @@
 package com.example.custom_protect.jwt;
 
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
 import io.jsonwebtoken.JwtException;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
@@ -13,7 +15,7 @@ import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Base64;
 import java.util.Date;
-import java.util.function.Function;
+import java.util.Optional;
 
 import static com.example.custom_protect.utils.Constants.*;
 
@@ -27,7 +29,25 @@ public class JwtUtils {
     @Value("${jwt.expiration-ms:3600000}")
     private long jwtExpiration;
 
+    @Value("${jwt.fast-path:false}")
+    private boolean fastPath;
+
+    private SecretKey signingKey;
+    private Hs256TokenEngine engine;
+
+    @PostConstruct
+    void init() {
+        signingKey = buildSigningKey();
+        if (fastPath) {
+            engine = new Hs256TokenEngine(signingKey.getEncoded());
+        }
+    }
+
     private SecretKey getSigningKey() {
+        return signingKey;
+    }
+
+    private SecretKey buildSigningKey() {
         byte[] keyBytes;
         try {
             keyBytes = Base64.getDecoder().decode(secret);
@@ -41,52 +61,76 @@ public class JwtUtils {
     }
 
     public String createToken(String subject) {
+        long now = System.currentTimeMillis();
+        if (engine != null) {
+            return engine.create(subject, now, now + jwtExpiration);
+        }
         return Jwts.builder()
                 .setSubject(subject)
-                .setIssuedAt(new Date(System.currentTimeMillis()))
-                .setExpiration(new Date(System.currentTimeMillis() + jwtExpiration))
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + jwtExpiration))
                 .signWith(getSigningKey(), SignatureAlgorithm.HS256)
                 .compact();
     }
 
+    private Claims extractAllClaims(String token) {
+        return Jwts.parserBuilder()
+                .setSigningKey(getSigningKey())
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
 
-
-    public boolean isTokenValid(String token) {
+    /**
+     * Полная проверка токена (подпись и срок) с одним разбором.
+     *
+     * @return субъект и срок действия, либо пустой Optional, если токен не валиден
+     */
+    public Optional<TokenClaims> verify(String token) {
+        if (token == null || token.isBlank()) {
+            return Optional.empty();
+        }
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return !isTokenExpired(token);
-        } catch (JwtException e) {
-            log.warn("Недействительный токен JWT:{}", e.getMessage());
-            return false;
+            Optional<Hs256TokenEngine.VerifiedToken> verified = verifyFast(token);
+            if (verified.isPresent()) {
+                Hs256TokenEngine.VerifiedToken v = verified.get();
+                return Optional.of(new TokenClaims(v.subject(), v.issuedAtSeconds(), v.expiresAtSeconds()));
+            }
+            Claims claims = extractAllClaims(token);
+            return Optional.of(new TokenClaims(claims.getSubject(),
+                    toSeconds(claims.getIssuedAt()), toSeconds(claims.getExpiration())));
+        } catch (JwtException | IllegalArgumentException e) {
+            return Optional.empty();
         }
     }
 
-
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    public record TokenClaims(String subject, Long issuedAtSeconds, Long expiresAtSeconds) {
     }
 
-    private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
-        return claimsResolver.apply(claims);
+    /**
+     * Идентификатор токена для отзыва и журналов — сегмент подписи (после последней точки).
+     */
+    public static String tokenId(String token) {
+        return token.substring(token.lastIndexOf('.') + 1);
     }
 
-    private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    private static Long toSeconds(Date date) {
+        return date == null ? null : date.getTime() / 1000;
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-    public String extractUsername(String token) {
-        return extractClaim(token, Claims::getSubject);
+    /**
+     * Проверка подписи и срока быстрым движком. Пустой результат — токен не нашей формы
+     * (или быстрый путь выключен), его нужно разбирать через jjwt.
+     */
+    private Optional<Hs256TokenEngine.VerifiedToken> verifyFast(String token) {
+        if (engine == null) {
+            return Optional.empty();
+        }
+        Optional<Hs256TokenEngine.VerifiedToken> verified = engine.verify(token);
+        if (verified.isPresent() && verified.get().expiresAtSeconds() * 1000 < System.currentTimeMillis()) {
+            throw new ExpiredJwtException(null, null, "Срок действия JWT истёк");
+        }
+        return verified;
     }
     private void headerPayloadPrint(String token) {
         String[] chunks = token.split("\\.");
@@ -0,0 +1,108 @@
+package com.example.custom_protect.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Приводит схему, созданную раньше Hibernate ({@code ddl-auto}) и принятую за V1 через
+ * {@code baseline-on-migrate}, к именам ограничений и индексов из V1: Hibernate называет их хэшами
+ * ({@code UK6dotk...}, {@code FKk91u...}), а V3 и последующие миграции ссылаются на имена из V1.
+ * На схеме, созданной миграцией V1, ничего не меняет.
+ */
+@Component
+@Slf4j
+public class V1_1__NormalizeLegacySchema extends BaseJavaMigration {
+
+    private static final String CONSTRAINTS_SQL =
+            "SELECT tc.constraint_name, tc.constraint_type, kcu.column_name "
+                    + "FROM information_schema.table_constraints tc "
+                    + "JOIN information_schema.key_column_usage kcu "
+                    + "  ON kcu.constraint_name = tc.constraint_name "
+                    + " AND kcu.table_schema = tc.table_schema "
+                    + " AND kcu.table_name = tc.table_name "
+                    + "WHERE LOWER(tc.table_schema) = LOWER(?) AND LOWER(tc.table_name) = ? AND tc.constraint_type = ?";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        String schema = connection.getSchema();
+
+        normalize(connection, schema, "users", "UNIQUE", Set.of("name"), "uk_users_name",
+                "ALTER TABLE users ADD CONSTRAINT uk_users_name UNIQUE (name)");
+        normalize(connection, schema, "users", "UNIQUE", Set.of("email"), "uk_users_email",
+                "ALTER TABLE users ADD CONSTRAINT uk_users_email UNIQUE (email)");
+        normalize(connection, schema, "authorities", "FOREIGN KEY", Set.of("user_id"), "fk_authorities_user",
+                "ALTER TABLE authorities ADD CONSTRAINT fk_authorities_user FOREIGN KEY (user_id) REFERENCES users (id)");
+
+        // V3 удаляет этот индекс, заменяя его уникальным ограничением
+        if (!indexExists(connection, schema, "authorities", "idx_authorities_user_authority")) {
+            execute(connection, "CREATE INDEX idx_authorities_user_authority ON authorities (user_id, authority)");
+        }
+    }
+
+    private static void normalize(Connection connection, String schema, String table, String type, Set<String> columns,
+                           String expectedName, String createSql) throws SQLException {
+        Optional<String> existing = findConstraint(connection, schema, table, type, columns);
+        if (existing.isEmpty()) {
+            execute(connection, createSql);
+        } else if (!existing.get().equalsIgnoreCase(expectedName)) {
+            execute(connection, "ALTER TABLE " + table + " RENAME CONSTRAINT \"" + existing.get() + "\" TO " + expectedName);
+        }
+    }
+
+    private static Optional<String> findConstraint(Connection connection, String schema, String table, String type,
+                                                   Set<String> columns) throws SQLException {
+        Map<String, Set<String>> byName = new TreeMap<>();
+        try (PreparedStatement ps = connection.prepareStatement(CONSTRAINTS_SQL)) {
+            ps.setString(1, schema);
+            ps.setString(2, table);
+            ps.setString(3, type);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    byName.computeIfAbsent(rs.getString(1), n -> new TreeSet<>())
+                            .add(rs.getString(3).toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return byName.entrySet().stream()
+                .filter(e -> e.getValue().equals(columns))
+                .map(Map.Entry::getKey)
+                .findFirst();
+    }
+
+    private static boolean indexExists(Connection connection, String schema, String table, String index)
+            throws SQLException {
+        DatabaseMetaData metaData = connection.getMetaData();
+        String tableName = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+        try (ResultSet rs = metaData.getIndexInfo(connection.getCatalog(), schema, tableName, false, true)) {
+            while (rs.next()) {
+                if (index.equalsIgnoreCase(rs.getString("INDEX_NAME"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void execute(Connection connection, String sql) throws SQLException {
+        log.info("Приведение унаследованной схемы: {}", sql);
+        try (Statement statement = connection.createStatement()) {
+            statement.execute(sql);
+        }
+    }
+}
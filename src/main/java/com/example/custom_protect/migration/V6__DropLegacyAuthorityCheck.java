@@ -0,0 +1,52 @@
+package com.example.custom_protect.migration;
+
+import lombok.extern.slf4j.Slf4j;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hibernate {@code ddl-auto} создавал на {@code authorities.authority} CHECK со списком значений
+ * {@code RoleType} на тот момент; с появлением {@code ROLE_INTROSPECT} он отвергает новые роли.
+ * Набор ролей проверяет приложение, поэтому ограничение удаляется. Схемы из V1 его не содержат.
+ */
+@Component
+@Slf4j
+public class V6__DropLegacyAuthorityCheck extends BaseJavaMigration {
+
+    private static final String CHECKS_SQL =
+            "SELECT tc.constraint_name "
+                    + "FROM information_schema.table_constraints tc "
+                    + "JOIN information_schema.check_constraints cc "
+                    + "  ON cc.constraint_schema = tc.constraint_schema AND cc.constraint_name = tc.constraint_name "
+                    + "WHERE LOWER(tc.table_schema) = LOWER(?) AND LOWER(tc.table_name) = 'authorities' "
+                    + "  AND tc.constraint_type = 'CHECK' AND cc.check_clause LIKE '%ROLE\\_%' ESCAPE '\\'";
+
+    @Override
+    public void migrate(Context context) throws Exception {
+        Connection connection = context.getConnection();
+        List<String> checks = new ArrayList<>();
+        try (PreparedStatement ps = connection.prepareStatement(CHECKS_SQL)) {
+            ps.setString(1, connection.getSchema());
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    checks.add(rs.getString(1));
+                }
+            }
+        }
+        for (String check : checks) {
+            String sql = "ALTER TABLE authorities DROP CONSTRAINT \"" + check + "\"";
+            log.info("Приведение унаследованной схемы: {}", sql);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(sql);
+            }
+        }
+    }
+}
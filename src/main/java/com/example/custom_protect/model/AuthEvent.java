@@ -0,0 +1,38 @@
+package com.example.custom_protect.model;
+
+import com.example.custom_protect.model.en.AuthEventType;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.Instant;
+
+/**
+ * Запись журнала аудита. Таблица только дописывается: вставки идут пачками из
+ * {@link com.example.custom_protect.audit.AuthEventWriter}, удаление — только по сроку хранения.
+ */
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "auth_events", indexes = @Index(name = "idx_auth_events_created_at", columnList = "created_at"))
+public class AuthEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "event_type", nullable = false, length = 32)
+    private AuthEventType eventType;
+
+    @Column(name = "name")
+    private String name;
+
+    @Column(name = "detail", length = 512)
+    private String detail;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+}
@@ -8,7 +8,7 @@ import lombok.ToString;
 
 @Data
 @Entity
-@Table(name = "authorities")
+@Table(name = "authorities", uniqueConstraints = @UniqueConstraint(name = "uk_authorities_user_authority", columnNames = {"user_id", "authority"}))
 public class Role {
 
     @Id
@@ -16,7 +16,7 @@ public class Role {
     private Long id;
 
     @Enumerated(EnumType.STRING)
-    @Column(name = "authority", nullable = false)
+    @Column(name = "authority", nullable = false, length = 32)
     private RoleType authority;
 
     @ManyToOne(fetch = FetchType.LAZY)
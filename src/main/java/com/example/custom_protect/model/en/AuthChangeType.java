@@ -0,0 +1,8 @@
+package com.example.custom_protect.model.en;
+
+public enum AuthChangeType {
+    ROLES_CHANGED,
+    USER_DELETED,
+    TOKEN_REVOKED,
+    SESSION_CREATED
+}
@@ -0,0 +1,10 @@
+package com.example.custom_protect.model.en;
+
+public enum AuthEventType {
+    LOGIN_SUCCESS,
+    LOGIN_FAILURE,
+    REGISTRATION,
+    ACCESS_DENIED,
+    ROLE_GRANTED,
+    ROLE_REVOKED
+}
@@ -1,6 +1,22 @@
 package com.example.custom_protect.model.en;
 
 public enum RoleType {
-    ROLE_USER,
-    ROLE_ADMIN
-}
\ No newline at end of file
+    ROLE_USER(0),
+    ROLE_ADMIN(1),
+    /** Сервисная роль шлюза: только пакетная интроспекция токенов. */
+    ROLE_INTROSPECT(2);
+
+    /**
+     * Номер бита роли в маске opaque-сессии ({@code auth_changes.role_mask}), которую читают все узлы.
+     * Задан явно, а не порядком значений: при перестановке или вставке роли маски старых записей не меняют смысл.
+     */
+    private final int bit;
+
+    RoleType(int bit) {
+        this.bit = bit;
+    }
+
+    public int mask() {
+        return 1 << bit;
+    }
+}
@@ -0,0 +1,6 @@
+package com.example.custom_protect.model.en;
+
+public enum TokenType {
+    JWT,
+    OPAQUE
+}
@@ -0,0 +1,52 @@
+package com.example.custom_protect.reactive;
+
+import com.example.custom_protect.audit.AuthAuditService;
+import com.example.custom_protect.dto.LoginRequest;
+import com.example.custom_protect.exception.AuthenticationException;
+import com.example.custom_protect.jwt.JwtUtils;
+import com.example.custom_protect.model.en.AuthEventType;
+import com.example.custom_protect.model.en.TokenType;
+import com.example.custom_protect.utils.PasswordEncoder;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * Логин без блокировки event loop: пользователь читается через R2DBC, сверка пароля
+ * выполняется на отдельном ограниченном планировщике.
+ */
+public class ReactiveAuthService {
+
+    private final ReactiveUserRepository userRepository;
+    private final JwtUtils jwtUtils;
+    private final AuthAuditService auditService;
+    private final Scheduler passwordHashScheduler;
+
+    public ReactiveAuthService(ReactiveUserRepository userRepository, JwtUtils jwtUtils,
+                               AuthAuditService auditService, Scheduler passwordHashScheduler) {
+        this.userRepository = userRepository;
+        this.jwtUtils = jwtUtils;
+        this.auditService = auditService;
+        this.passwordHashScheduler = passwordHashScheduler;
+    }
+
+    public Mono<String> authenticate(LoginRequest request) {
+        if (request.tokenType() == TokenType.OPAQUE) {
+            // хранилище opaque-сессий и лента изменений работают только на servlet-стеке
+            return Mono.error(new IllegalArgumentException("Реактивный режим выдаёт только JWT"));
+        }
+        return userRepository.findPasswordByName(request.name())
+                .flatMap(encoded -> Mono.fromCallable(() -> PasswordEncoder.matches(request.password(), encoded))
+                        .subscribeOn(passwordHashScheduler))
+                .filter(Boolean::booleanValue)
+                .map(matched -> {
+                    String token = jwtUtils.createToken(request.name());
+                    auditService.publish(AuthEventType.LOGIN_SUCCESS, request.name(), null);
+                    return token;
+                })
+                .switchIfEmpty(Mono.defer(() -> {
+                    // для неизвестного пользователя это поток R2DBC/Netty — ждать места в буфере аудита нельзя
+                    auditService.publishNonBlocking(AuthEventType.LOGIN_FAILURE, request.name(), null);
+                    return Mono.error(new AuthenticationException("Неверный логин или пароль"));
+                }));
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.custom_protect.reactive;
+
+import com.example.custom_protect.exception.AuthenticationException;
+import com.example.custom_protect.security.AuthenticatedUser;
+import com.example.custom_protect.security.CurrentUser;
+import org.springframework.core.MethodParameter;
+import org.springframework.web.reactive.BindingContext;
+import org.springframework.web.reactive.result.method.HandlerMethodArgumentResolver;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+public class ReactiveCurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && AuthenticatedUser.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Mono<Object> resolveArgument(MethodParameter parameter, BindingContext bindingContext, ServerWebExchange exchange) {
+        Mono<AuthenticatedUser> principal = exchange.getAttribute(ReactiveJwtAuthFilter.PRINCIPAL_ATTRIBUTE);
+        if (principal == null) {
+            return Mono.error(new AuthenticationException("@CurrentUser доступен только на эндпоинтах с @JwtAuth или @JwtAuthWithRoles."));
+        }
+        return (Mono<Object>) (Mono<?>) principal;
+    }
+}
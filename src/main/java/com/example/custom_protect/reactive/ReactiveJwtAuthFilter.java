@@ -0,0 +1,130 @@
+package com.example.custom_protect.reactive;
+
+import com.example.custom_protect.audit.AuthAuditService;
+import com.example.custom_protect.dto.ErrorResponse;
+import com.example.custom_protect.exception.AuthenticationException;
+import com.example.custom_protect.jwt.JwtUtils;
+import com.example.custom_protect.model.en.AuthEventType;
+import com.example.custom_protect.model.en.RoleType;
+import com.example.custom_protect.security.AuthenticatedUser;
+import com.example.custom_protect.security.JwtAuth;
+import com.example.custom_protect.security.JwtAuthWithRoles;
+import com.example.custom_protect.service.AuthService;
+import com.example.custom_protect.service.RevokedTokens;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.reactive.result.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.Set;
+
+/**
+ * Реактивный аналог {@link com.example.custom_protect.security.JwtAuthInterceptor}: те же аннотации
+ * {@link JwtAuth} / {@link JwtAuthWithRoles}, проверка подписи в памяти, роли — через R2DBC.
+ * Принципал для {@link com.example.custom_protect.security.CurrentUser} кладётся в атрибут обмена
+ * как ленивый {@code Mono}.
+ */
+@Slf4j
+public class ReactiveJwtAuthFilter implements WebFilter {
+
+    public static final String PRINCIPAL_ATTRIBUTE = ReactiveJwtAuthFilter.class.getName() + ".PRINCIPAL";
+    private static final String SUBJECT_ATTRIBUTE = ReactiveJwtAuthFilter.class.getName() + ".SUBJECT";
+
+    private final RequestMappingHandlerMapping handlerMapping;
+    private final JwtUtils jwtUtils;
+    private final AuthService authService;
+    private final ReactiveUserRepository userRepository;
+    private final RevokedTokens revokedTokens;
+    private final AuthAuditService auditService;
+    private final ObjectMapper objectMapper;
+
+    public ReactiveJwtAuthFilter(RequestMappingHandlerMapping handlerMapping, JwtUtils jwtUtils, AuthService authService,
+                                 ReactiveUserRepository userRepository, RevokedTokens revokedTokens,
+                                 AuthAuditService auditService, ObjectMapper objectMapper) {
+        this.handlerMapping = handlerMapping;
+        this.jwtUtils = jwtUtils;
+        this.authService = authService;
+        this.userRepository = userRepository;
+        this.revokedTokens = revokedTokens;
+        this.auditService = auditService;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        return handlerMapping.getHandler(exchange)
+                .ofType(HandlerMethod.class)
+                .flatMap(hm -> authorize(exchange, hm))
+                .then(Mono.defer(() -> chain.filter(exchange)))
+                .onErrorResume(AuthenticationException.class, e -> reject(exchange, e));
+    }
+
+    private Mono<Void> authorize(ServerWebExchange exchange, HandlerMethod hm) {
+        // Сперва получаем аннотации с метода, если нет — с класса
+        JwtAuth jwtAuth = hm.getMethodAnnotation(JwtAuth.class);
+        if (jwtAuth == null) jwtAuth = hm.getBeanType().getAnnotation(JwtAuth.class);
+
+        JwtAuthWithRoles jwtAuthWithRoles = hm.getMethodAnnotation(JwtAuthWithRoles.class);
+        if (jwtAuthWithRoles == null) jwtAuthWithRoles = hm.getBeanType().getAnnotation(JwtAuthWithRoles.class);
+
+        if (jwtAuth == null && jwtAuthWithRoles == null) {
+            return Mono.empty();
+        }
+
+        String authHeader = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (authHeader == null || !authHeader.startsWith("Bearer ")) {
+            return Mono.error(new AuthenticationException("Заголовок авторизации отсутствует или недействителен."));
+        }
+        String token = authHeader.substring(7);
+        JwtUtils.TokenClaims claims = jwtUtils.verify(token).orElse(null);
+        if (claims == null) {
+            return Mono.error(new AuthenticationException("Токен не валиден: протух или подпись некорректна."));
+        }
+        if (revokedTokens.isRevoked(token, claims)) {
+            return Mono.error(new AuthenticationException("Токен отозван."));
+        }
+
+        exchange.getAttributes().put(SUBJECT_ATTRIBUTE, claims.subject());
+        Mono<Set<RoleType>> roles = Mono.defer(() -> userRepository.findAuthoritiesByName(claims.subject())).cache();
+        exchange.getAttributes().put(PRINCIPAL_ATTRIBUTE, roles.map(r -> AuthenticatedUser.of(token, claims, r)).cache());
+
+        if (jwtAuthWithRoles == null || jwtAuthWithRoles.allowedRoles().length == 0) {
+            return Mono.empty();
+        }
+        String[] allowedRoles = jwtAuthWithRoles.allowedRoles();
+        return roles.flatMap(granted -> authService.hasAnyRole(granted, allowedRoles)
+                ? Mono.empty()
+                : Mono.error(new AuthenticationException("Доступ запрещен: недостаточно ролей.")));
+    }
+
+    private Mono<Void> reject(ServerWebExchange exchange, AuthenticationException e) {
+        ServerHttpRequest request = exchange.getRequest();
+        // фильтр работает на event loop: ждать места в буфере аудита здесь нельзя
+        auditService.publishNonBlocking(AuthEventType.ACCESS_DENIED, exchange.getAttribute(SUBJECT_ATTRIBUTE),
+                request.getMethod() + " " + request.getPath().value() + ": " + e.getMessage());
+
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.UNAUTHORIZED);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(new ErrorResponse(e.getMessage(), HttpStatus.UNAUTHORIZED.value()));
+        } catch (JsonProcessingException ex) {
+            log.error("Не удалось сериализовать ответ об ошибке: {}", ex.getMessage());
+            return response.setComplete();
+        }
+        DataBuffer buffer = response.bufferFactory().wrap(body);
+        return response.writeWith(Mono.just(buffer));
+    }
+}
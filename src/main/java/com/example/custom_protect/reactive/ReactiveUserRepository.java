@@ -0,0 +1,40 @@
+package com.example.custom_protect.reactive;
+
+import com.example.custom_protect.model.en.RoleType;
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Неблокирующие чтения пользователей и ролей через R2DBC. Схема та же, что у JPA
+ * (таблицы {@code users} и {@code authorities} из миграций).
+ */
+public class ReactiveUserRepository {
+
+    private static final String FIND_AUTHORITIES =
+            "SELECT a.authority FROM authorities a JOIN users u ON u.id = a.user_id WHERE u.name = :name";
+    private static final String FIND_PASSWORD = "SELECT password FROM users WHERE name = :name";
+
+    private final DatabaseClient databaseClient;
+
+    public ReactiveUserRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<Set<RoleType>> findAuthoritiesByName(String name) {
+        return databaseClient.sql(FIND_AUTHORITIES)
+                .bind("name", name)
+                .map(row -> RoleType.valueOf(row.get("authority", String.class)))
+                .all()
+                .collect(() -> EnumSet.noneOf(RoleType.class), Set::add);
+    }
+
+    public Mono<String> findPasswordByName(String name) {
+        return databaseClient.sql(FIND_PASSWORD)
+                .bind("name", name)
+                .map(row -> row.get("password", String.class))
+                .one();
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.custom_protect.repository;
+
+import com.example.custom_protect.model.en.RoleType;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Множественные изменения ролей одним SQL-выражением на пачку пользователей, без загрузки
+ * сущностей {@code User} и их коллекций {@code roles}. Изменённые пользователи берутся из
+ * самого DML ({@code RETURNING} в PostgreSQL, {@code FINAL TABLE}/{@code OLD TABLE} в H2),
+ * а не отдельной выборкой, которая могла бы разойтись с ним под конкурентной нагрузкой.
+ */
+@Repository
+public class RoleAdminRepository {
+
+    private static final String HAS_ROLE =
+            "EXISTS (SELECT 1 FROM authorities a WHERE a.user_id = u.id AND a.authority = :role)";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+    private final boolean postgres;
+
+    public record UserRef(long id, String name) {}
+
+    private static final RowMapper<UserRef> USER_REF = (rs, i) -> new UserRef(rs.getLong("user_id"), rs.getString("name"));
+
+    public RoleAdminRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.postgres = isPostgres(jdbcTemplate.getJdbcTemplate().getDataSource());
+    }
+
+    /**
+     * Выдаёт роль пользователям выборки, у которых её ещё нет, и возвращает именно их.
+     * Строки пользователей блокируются до вставки: параллельная выдача той же роли ждёт
+     * коммита и видит уже вставленные строки вместо нарушения {@code uk_authorities_user_authority}.
+     */
+    public List<UserRef> grant(RoleType role, UserSelector selector) {
+        MapSqlParameterSource params = params(role);
+        String where = where(selector, params);
+        // порядок по id — одинаковый порядок блокировок у пересекающихся выборок, без взаимоблокировок
+        jdbcTemplate.query("SELECT u.id FROM users u WHERE " + where + " ORDER BY u.id FOR UPDATE", params,
+                (RowCallbackHandler) rs -> {});
+
+        String insert = "INSERT INTO authorities (user_id, authority) SELECT u.id, :role FROM users u WHERE "
+                + where + " AND NOT " + HAS_ROLE;
+        return changed(postgres ? insert + " ON CONFLICT (user_id, authority) DO NOTHING" : insert, params);
+    }
+
+    /**
+     * Отзывает роль у пользователей выборки и возвращает тех, у кого она действительно была.
+     */
+    public List<UserRef> revoke(RoleType role, UserSelector selector) {
+        MapSqlParameterSource params = params(role);
+        String delete = "DELETE FROM authorities WHERE authority = :role AND user_id IN (SELECT u.id FROM users u WHERE "
+                + where(selector, params) + ")";
+        return changed(delete, params);
+    }
+
+    private List<UserRef> changed(String dml, MapSqlParameterSource params) {
+        String sql = postgres
+                ? "WITH d AS (" + dml + " RETURNING user_id) SELECT d.user_id, u.name FROM d JOIN users u ON u.id = d.user_id"
+                : "SELECT d.user_id, u.name FROM " + (dml.startsWith("DELETE") ? "OLD" : "FINAL")
+                        + " TABLE (" + dml + ") d JOIN users u ON u.id = d.user_id";
+        return jdbcTemplate.query(sql, params, USER_REF);
+    }
+
+    private static boolean isPostgres(DataSource dataSource) {
+        try {
+            return "PostgreSQL".equals(JdbcUtils.extractDatabaseMetaData(dataSource, DatabaseMetaData::getDatabaseProductName));
+        } catch (MetaDataAccessException e) {
+            throw new IllegalStateException("Не удалось определить тип БД", e);
+        }
+    }
+
+    private static MapSqlParameterSource params(RoleType role) {
+        return new MapSqlParameterSource("role", role.name());
+    }
+
+    private static String where(UserSelector selector, MapSqlParameterSource params) {
+        if (selector.isEmpty()) {
+            throw new IllegalArgumentException("Пустая выборка пользователей");
+        }
+        if (selector.names() != null) {
+            params.addValue("names", selector.names());
+            return "u.name IN (:names)";
+        }
+        List<String> conditions = new ArrayList<>();
+        if (selector.namePrefix() != null) {
+            // префикс по уникальному индексу имени
+            params.addValue("namePrefix", escapeLike(selector.namePrefix()) + "%");
+            conditions.add("u.name LIKE :namePrefix ESCAPE '\\'");
+        }
+        if (selector.emailDomain() != null) {
+            params.addValue("emailDomain", "%@" + escapeLike(selector.emailDomain()));
+            conditions.add("u.email LIKE :emailDomain ESCAPE '\\'");
+        }
+        return String.join(" AND ", conditions);
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
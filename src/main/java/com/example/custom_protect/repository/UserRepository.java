@@ -1,14 +1,20 @@
 package com.example.custom_protect.repository;
 
+import com.example.custom_protect.dto.UserRoleView;
 import com.example.custom_protect.model.User;
 import com.example.custom_protect.model.en.RoleType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
+@Transactional(readOnly = true)
 public interface UserRepository extends JpaRepository<User, Long> {
 
   Optional<User> findByEmail(String email);
@@ -19,4 +25,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
 
   boolean existsByNameAndRolesAuthorityIn(String name, Collection<RoleType> roles);
+
+  @Query("select r.authority from Role r where r.user.name = :name")
+  List<RoleType> findAuthoritiesByName(@Param("name") String name);
+
+  @Query("select u.name as name, r.authority as authority from our_user u left join u.roles r where u.name in :names")
+  List<UserRoleView> findRolesByNameIn(@Param("names") Collection<String> names);
 }
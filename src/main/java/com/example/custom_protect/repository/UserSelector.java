@@ -0,0 +1,32 @@
+package com.example.custom_protect.repository;
+
+import com.example.custom_protect.dto.RoleChangeRequest;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Набор пользователей для пакетных операций {@link RoleAdminRepository}: список имён или фильтр.
+ */
+public record UserSelector(Collection<String> names, String namePrefix, String emailDomain) {
+
+    public static UserSelector byNames(Collection<String> names) {
+        return new UserSelector(List.copyOf(names), null, null);
+    }
+
+    public static UserSelector matching(RoleChangeRequest.UserFilter filter) {
+        String domain = blankToNull(filter.emailDomain());
+        if (domain != null && domain.startsWith("@")) {
+            domain = blankToNull(domain.substring(1));
+        }
+        return new UserSelector(null, blankToNull(filter.namePrefix()), domain);
+    }
+
+    public boolean isEmpty() {
+        return names == null ? namePrefix == null && emailDomain == null : names.isEmpty();
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+}
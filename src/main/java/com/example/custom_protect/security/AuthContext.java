@@ -0,0 +1,46 @@
+package com.example.custom_protect.security;
+
+import com.example.custom_protect.jwt.JwtUtils;
+import com.example.custom_protect.model.en.RoleType;
+
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Результат проверки токена, сохраняемый {@link JwtAuthInterceptor} в атрибуте запроса.
+ * Роли читаются из БД не больше одного раза и только если они кому-то понадобились.
+ */
+final class AuthContext {
+
+    static final String ATTRIBUTE = AuthContext.class.getName();
+
+    private final String token;
+    private final JwtUtils.TokenClaims claims;
+    private final Function<String, Set<RoleType>> roleLoader;
+    private Set<RoleType> roles;
+    private AuthenticatedUser principal;
+
+    AuthContext(String token, JwtUtils.TokenClaims claims, Function<String, Set<RoleType>> roleLoader) {
+        this.token = token;
+        this.claims = claims;
+        this.roleLoader = roleLoader;
+    }
+
+    String subject() {
+        return claims.subject();
+    }
+
+    Set<RoleType> roles() {
+        if (roles == null) {
+            roles = roleLoader.apply(claims.subject());
+        }
+        return roles;
+    }
+
+    AuthenticatedUser principal() {
+        if (principal == null) {
+            principal = AuthenticatedUser.of(token, claims, roles());
+        }
+        return principal;
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.custom_protect.security;
+
+import com.example.custom_protect.jwt.JwtUtils;
+import com.example.custom_protect.model.en.RoleType;
+import com.example.custom_protect.session.SessionStore;
+
+import java.time.Instant;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Неизменяемый принципал текущего запроса.
+ *
+ * @param tokenId   идентификатор токена (сегмент подписи JWT или ключ opaque-сессии, уникален для каждого выпущенного токена)
+ * @param expiresAt срок действия токена, null если в токене его нет
+ */
+public record AuthenticatedUser(String name, Set<String> roles, String tokenId, Instant expiresAt) {
+
+    public AuthenticatedUser {
+        roles = Set.copyOf(roles);
+    }
+
+    public static AuthenticatedUser of(String token, JwtUtils.TokenClaims claims, Set<RoleType> roles) {
+        Long exp = claims.expiresAtSeconds();
+        return new AuthenticatedUser(
+                claims.subject(),
+                roles.stream().map(RoleType::name).collect(Collectors.toSet()),
+                SessionStore.isOpaque(token) ? SessionStore.keyOf(token) : JwtUtils.tokenId(token),
+                exp == null ? null : Instant.ofEpochSecond(exp));
+    }
+}
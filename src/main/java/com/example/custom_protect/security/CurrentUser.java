@@ -0,0 +1,15 @@
+package com.example.custom_protect.security;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Внедряет {@link AuthenticatedUser} в параметр метода контроллера, защищённого
+ * {@link JwtAuth} или {@link JwtAuthWithRoles}.
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CurrentUser {
+}
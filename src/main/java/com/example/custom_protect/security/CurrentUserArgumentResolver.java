@@ -0,0 +1,30 @@
+package com.example.custom_protect.security;
+
+import com.example.custom_protect.exception.AuthenticationException;
+import org.springframework.core.MethodParameter;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && AuthenticatedUser.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest webRequest, WebDataBinderFactory binderFactory) {
+        Object context = webRequest.getAttribute(AuthContext.ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (!(context instanceof AuthContext authContext)) {
+            throw new AuthenticationException("@CurrentUser доступен только на эндпоинтах с @JwtAuth или @JwtAuthWithRoles.");
+        }
+        return authContext.principal();
+    }
+}
@@ -1,7 +1,11 @@
 package com.example.custom_protect.security;
 
+import com.example.custom_protect.audit.AuthAuditService;
 import com.example.custom_protect.exception.AuthenticationException;
+import com.example.custom_protect.jwt.JwtUtils;
+import com.example.custom_protect.model.en.AuthEventType;
 import com.example.custom_protect.service.AuthService;
+import com.example.custom_protect.session.SessionStore;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
@@ -14,6 +18,7 @@ import org.springframework.web.servlet.HandlerInterceptor;
 public class JwtAuthInterceptor implements HandlerInterceptor {
 
     private final AuthService authService;
+    private final AuthAuditService auditService;
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
@@ -35,24 +40,46 @@ public class JwtAuthInterceptor implements HandlerInterceptor {
             return true;
         }
 
+        try {
+            authorize(request, jwtAuthWithRoles);
+        } catch (AuthenticationException e) {
+            // если токен уже проверен (отказ по ролям), субъект известен
+            AuthContext context = (AuthContext) request.getAttribute(AuthContext.ATTRIBUTE);
+            auditService.publish(AuthEventType.ACCESS_DENIED, context == null ? null : context.subject(),
+                    request.getMethod() + " " + request.getRequestURI() + ": " + e.getMessage());
+            throw e;
+        }
+        return true;
+    }
+
+    private void authorize(HttpServletRequest request, JwtAuthWithRoles jwtAuthWithRoles) {
         String authHeader = request.getHeader("Authorization");
         if (authHeader == null || !authHeader.startsWith("Bearer ")) {
             throw new AuthenticationException("Заголовок авторизации отсутствует или недействителен.");
         }
 
         String token = authHeader.substring(7);
-        authService.validateToken(token);
+        AuthContext context;
+        if (SessionStore.isOpaque(token)) {
+            // роли лежат в самой сессии: при их смене сессии пользователя сбрасываются
+            SessionStore.Session session = authService.verifySession(token);
+            JwtUtils.TokenClaims claims = new JwtUtils.TokenClaims(session.name(), null, session.expiresAtSeconds());
+            context = new AuthContext(token, claims, name -> session.roles());
+        } else {
+            JwtUtils.TokenClaims claims = authService.verifyToken(token);
+            // роли и принципал вычисляются лениво: только если их спросит проверка ролей или @CurrentUser
+            context = new AuthContext(token, claims, authService::loadRoles);
+        }
+        request.setAttribute(AuthContext.ATTRIBUTE, context);
 
         if (jwtAuthWithRoles != null) {
             String[] allowedRoles = jwtAuthWithRoles.allowedRoles();
             if (allowedRoles.length > 0) {
-                boolean hasRole = authService.hasAnyRole(token, allowedRoles);
+                boolean hasRole = authService.hasAnyRole(context.roles(), allowedRoles);
                 if (!hasRole) {
                     throw new AuthenticationException("Доступ запрещен: недостаточно ролей.");
                 }
             }
         }
-
-        return true;
     }
 }
\ No newline at end of file
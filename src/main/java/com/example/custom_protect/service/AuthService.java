@@ -1,17 +1,30 @@
 package com.example.custom_protect.service;
 
+import com.example.custom_protect.audit.AuthAuditService;
+import com.example.custom_protect.changefeed.AuthChange;
+import com.example.custom_protect.changefeed.AuthChangeFeed;
+import com.example.custom_protect.datasource.ReadYourWritesGuard;
 import com.example.custom_protect.dto.LoginRequest;
 import com.example.custom_protect.exception.AuthenticationException;
+import com.example.custom_protect.exception.ServiceUnavailableException;
 import com.example.custom_protect.jwt.JwtUtils;
 import com.example.custom_protect.model.User;
+import com.example.custom_protect.model.en.AuthEventType;
 import com.example.custom_protect.model.en.RoleType;
+import com.example.custom_protect.model.en.TokenType;
 import com.example.custom_protect.repository.UserRepository;
+import com.example.custom_protect.security.AuthenticatedUser;
+import com.example.custom_protect.session.SessionStore;
 import com.example.custom_protect.utils.PasswordEncoder;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
 import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -22,33 +35,114 @@ public class AuthService {
 
     private final JwtUtils jwtUtils;
     private final UserRepository userRepository;
+    private final AuthAuditService auditService;
+    private final ReadYourWritesGuard readYourWrites;
+    private final RoleCache roleCache;
+    private final RevokedTokens revokedTokens;
+    private final AuthChangeFeed changeFeed;
+    private final SessionStore sessionStore;
 
     public ResponseEntity<String> authenticate(LoginRequest request) {
-        Optional<User> userOpt = userRepository.findByName(request.name());
+        Optional<User> userOpt = readYourWrites.read(request.name(), () -> userRepository.findByName(request.name()));
         if (userOpt.isPresent()) {
             User user = userOpt.get();
             if (PasswordEncoder.matches(request.password(), user.getPassword())) {
-                String token = jwtUtils.createToken(user.getName()); // токен содержит только имя
+                String token = request.tokenType() == TokenType.OPAQUE
+                        ? createSession(user)
+                        : jwtUtils.createToken(user.getName()); // токен содержит только имя
+                auditService.publish(AuthEventType.LOGIN_SUCCESS, user.getName(), null);
                 return ResponseEntity.ok(token);
             }
         }
+        auditService.publish(AuthEventType.LOGIN_FAILURE, request.name(), null);
         throw new AuthenticationException("Неверный логин или пароль");
     }
 
-    public void validateToken(String token) {
-        if (!jwtUtils.isTokenValid(token)) {
-            throw new AuthenticationException("Токен не валиден: протух или подпись некорректна.");
+    /**
+     * Выдаёт opaque-токен: сессия рассылается всем узлам через ленту, в БД пишется только ключ (хэш токена).
+     * Роли читаются из основной БД мимо кэша: кэш узла отстаёт от ленты на интервал опроса, а сессия
+     * с устаревшей маской разошлась бы по всем узлам на весь срок действия.
+     * <p>
+     * Сессия сначала сохраняется локально: при заполненном хранилище вход отклоняется до записи в ленту.
+     */
+    private String createSession(User user) {
+        String token = sessionStore.newToken();
+        String key = SessionStore.keyOf(token);
+        int roleMask = SessionStore.roleMask(readYourWrites.readPrimary(() -> userRepository.findAuthoritiesByName(user.getName())));
+        Instant expiresAt = Instant.now().plus(sessionStore.ttl());
+        if (!sessionStore.put(key, user.getId(), user.getName(), roleMask, expiresAt)) {
+            throw new ServiceUnavailableException("Хранилище сессий заполнено, повторите вход позже");
         }
+        changeFeed.publish(List.of(AuthChange.sessionCreated(user.getId(), user.getName(), key, roleMask, expiresAt)));
+        return token;
     }
-    public boolean hasAnyRole(String token, String[] requiredRoles) {
-        String username = getUsernameFromToken(token);
-        if (username == null || requiredRoles == null || requiredRoles.length == 0) {
-            return false;
+
+    /**
+     * Проверяет подпись и срок токена, разбирая его один раз.
+     */
+    public JwtUtils.TokenClaims verifyToken(String token) {
+        JwtUtils.TokenClaims claims = jwtUtils.verify(token)
+                .orElseThrow(() -> new AuthenticationException("Токен не валиден: протух или подпись некорректна."));
+        if (revokedTokens.isRevoked(token, claims)) {
+            throw new AuthenticationException("Токен отозван.");
+        }
+        return claims;
+    }
+
+    /**
+     * Находит opaque-сессию по токену: один хэш и одна проба в таблице, без обращения к БД.
+     * При промахе токен, выданный не раньше {@link AuthChangeFeed#deliveryWindow()} назад, ищется в основной БД:
+     * узел узнаёт о чужих сессиях из ленты не раньше очередного опроса, а первый запрос клиента мог уйти
+     * на него сразу после входа. Старые, истёкшие и произвольные токены до БД не доходят.
+     */
+    public SessionStore.Session verifySession(String token) {
+        return sessionStore.lookup(token)
+                .or(() -> findUndeliveredSession(token))
+                .orElseThrow(() -> new AuthenticationException("Сессия не найдена или истекла."));
+    }
+
+    private Optional<SessionStore.Session> findUndeliveredSession(String token) {
+        Optional<Instant> issuedAt = SessionStore.issuedAt(token);
+        if (issuedAt.isEmpty()
+                || Duration.between(issuedAt.get(), Instant.now()).abs().compareTo(changeFeed.deliveryWindow()) > 0) {
+            return Optional.empty();
+        }
+        return readYourWrites.readPrimary(() -> changeFeed.findSession(SessionStore.keyOf(token)))
+                .map(change -> new SessionStore.Session(change.userId(), change.subject(),
+                        SessionStore.roles(change.roleMask()), change.expiresAt().getEpochSecond()));
+    }
+
+    /**
+     * Отзывает текущий токен на всех узлах до окончания его срока действия.
+     */
+    public void logout(AuthenticatedUser user) {
+        changeFeed.publish(List.of(AuthChange.tokenRevoked(user.name(), user.tokenId(), user.expiresAt())));
+    }
+
+    /**
+     * Проверка ролей по уже загруженному набору, без обращения к БД.
+     */
+    public boolean hasAnyRole(Set<RoleType> granted, String[] requiredRoles) {
+        Set<RoleType> roles = parseRoles(requiredRoles);
+        return roles.stream().anyMatch(granted::contains);
+    }
+
+    public Set<RoleType> loadRoles(String username) {
+        if (username == null) {
+            return Set.of();
         }
+        return roleCache.get(username, name -> {
+            List<RoleType> roles = readYourWrites.read(name, () -> userRepository.findAuthoritiesByName(name));
+            return roles.isEmpty() ? Set.of() : EnumSet.copyOf(roles);
+        });
+    }
 
-        Set<RoleType> roles;
+    private Set<RoleType> parseRoles(String[] requiredRoles) {
+        if (requiredRoles == null || requiredRoles.length == 0) {
+            return Set.of();
+        }
         try {
-            roles = Arrays.stream(requiredRoles)
+            return Arrays.stream(requiredRoles)
                     .map(String::trim)
                     .filter(s -> !s.isEmpty())
                     .map(String::toUpperCase)
@@ -56,13 +150,7 @@ public class AuthService {
                     .collect(Collectors.toSet());
         } catch (IllegalArgumentException ex) {
             // Если пришла неизвестная роль — считаем, что совпадений нет
-            return false;
+            return Set.of();
         }
-
-        return userRepository.existsByNameAndRolesAuthorityIn(username, roles);
-    }
-
-    private String getUsernameFromToken(String token) {
-        return jwtUtils.extractUsername(token);
     }
-}
\ No newline at end of file
+}
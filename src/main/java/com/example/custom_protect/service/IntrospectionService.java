@@ -0,0 +1,169 @@
+package com.example.custom_protect.service;
+
+import com.example.custom_protect.dto.TokenIntrospection;
+import com.example.custom_protect.dto.UserRoleView;
+import com.example.custom_protect.exception.AuthenticationException;
+import com.example.custom_protect.jwt.JwtUtils;
+import com.example.custom_protect.repository.UserRepository;
+import com.example.custom_protect.session.SessionStore;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Пакетная проверка токенов для шлюза: подписи проверяются параллельно, роли всех
+ * различных субъектов читаются одним запросом (частями по {@value #NAMES_PER_QUERY} имён).
+ * <p>
+ * Параллельная проверка идёт на собственном пуле ({@code introspect.threads}, очередь
+ * {@code introspect.queue}), а не на общем ForkJoinPool: при заполненной очереди часть работы
+ * выполняет вызывающий поток, что и ограничивает нагрузку.
+ */
+@Service
+public class IntrospectionService {
+
+    private static final int NAMES_PER_QUERY = 500;
+    private static final int PARALLEL_THRESHOLD = 32;
+    private static final int CHUNK_SIZE = 32;
+
+    private final JwtUtils jwtUtils;
+    private final UserRepository userRepository;
+    private final RevokedTokens revokedTokens;
+    private final AuthService authService;
+    private final int maxTokens;
+    private final ThreadPoolExecutor executor;
+
+    public IntrospectionService(JwtUtils jwtUtils,
+                                UserRepository userRepository,
+                                RevokedTokens revokedTokens,
+                                AuthService authService,
+                                @Value("${introspect.max-tokens:1000}") int maxTokens,
+                                @Value("${introspect.threads:4}") int threads,
+                                @Value("${introspect.queue:64}") int queue) {
+        this.jwtUtils = jwtUtils;
+        this.userRepository = userRepository;
+        this.revokedTokens = revokedTokens;
+        this.authService = authService;
+        this.maxTokens = maxTokens;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queue),
+                r -> {
+                    Thread thread = new Thread(r, "introspect-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public List<TokenIntrospection> introspect(List<String> tokens) {
+        if (tokens == null || tokens.isEmpty()) {
+            return List.of();
+        }
+        if (tokens.size() > maxTokens) {
+            throw new IllegalArgumentException("Слишком много токенов в одном запросе: " + tokens.size() + ", максимум " + maxTokens);
+        }
+
+        List<Optional<JwtUtils.TokenClaims>> verified = verifyAll(tokens);
+
+        Set<String> subjects = new LinkedHashSet<>();
+        verified.forEach(v -> v.map(JwtUtils.TokenClaims::subject).ifPresent(subjects::add));
+        Map<String, List<String>> rolesBySubject = loadRoles(subjects);
+
+        List<TokenIntrospection> result = new ArrayList<>(tokens.size());
+        for (int i = 0; i < tokens.size(); i++) {
+            String token = tokens.get(i);
+            if (SessionStore.isOpaque(token)) {
+                // opaque-сессия несёт роли сама и сбрасывается при их смене или удалении пользователя;
+                // поиск тот же, что у JwtAuthInterceptor, включая ещё не доставленные лентой сессии
+                result.add(introspectSession(token));
+                continue;
+            }
+            Optional<JwtUtils.TokenClaims> v = verified.get(i);
+            List<String> roles = v.map(c -> rolesBySubject.get(c.subject())).orElse(null);
+            // токен удалённого пользователя не активен, даже если подпись и срок в порядке
+            result.add(roles == null
+                    ? TokenIntrospection.inactive()
+                    : new TokenIntrospection(true, v.get().subject(), roles, v.get().expiresAtSeconds()));
+        }
+        return result;
+    }
+
+    private TokenIntrospection introspectSession(String token) {
+        try {
+            SessionStore.Session s = authService.verifySession(token);
+            return new TokenIntrospection(true, s.name(), s.roles().stream().map(Enum::name).toList(), s.expiresAtSeconds());
+        } catch (AuthenticationException e) {
+            return TokenIntrospection.inactive();
+        }
+    }
+
+    private List<Optional<JwtUtils.TokenClaims>> verifyAll(List<String> tokens) {
+        if (tokens.size() < PARALLEL_THRESHOLD) {
+            return verifyChunk(tokens);
+        }
+        // первую часть проверяет вызывающий поток, остальные — пул
+        List<Future<List<Optional<JwtUtils.TokenClaims>>>> futures = new ArrayList<>();
+        for (int from = CHUNK_SIZE; from < tokens.size(); from += CHUNK_SIZE) {
+            List<String> chunk = tokens.subList(from, Math.min(from + CHUNK_SIZE, tokens.size()));
+            futures.add(executor.submit(() -> verifyChunk(chunk)));
+        }
+        List<Optional<JwtUtils.TokenClaims>> verified = new ArrayList<>(verifyChunk(tokens.subList(0, CHUNK_SIZE)));
+        try {
+            for (Future<List<Optional<JwtUtils.TokenClaims>>> future : futures) {
+                verified.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Проверка токенов прервана", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Ошибка проверки токенов", e.getCause());
+        }
+        return verified;
+    }
+
+    private List<Optional<JwtUtils.TokenClaims>> verifyChunk(List<String> tokens) {
+        List<Optional<JwtUtils.TokenClaims>> verified = new ArrayList<>(tokens.size());
+        for (String token : tokens) {
+            verified.add(SessionStore.isOpaque(token)
+                    ? Optional.empty()
+                    : jwtUtils.verify(token).filter(claims -> !revokedTokens.isRevoked(token, claims)));
+        }
+        return verified;
+    }
+
+    private Map<String, List<String>> loadRoles(Set<String> subjects) {
+        Map<String, List<String>> roles = new HashMap<>();
+        List<String> names = new ArrayList<>(subjects);
+        for (int from = 0; from < names.size(); from += NAMES_PER_QUERY) {
+            List<String> chunk = names.subList(from, Math.min(from + NAMES_PER_QUERY, names.size()));
+            for (UserRoleView row : userRepository.findRolesByNameIn(chunk)) {
+                List<String> userRoles = roles.computeIfAbsent(row.getName(), n -> new ArrayList<>());
+                if (row.getAuthority() != null) {
+                    userRoles.add(row.getAuthority().name());
+                }
+            }
+        }
+        return roles;
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.custom_protect.service;
+
+import com.example.custom_protect.jwt.JwtUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Отозванные токены на этом узле: отдельные токены (до их истечения) и все токены пользователя,
+ * выпущенные не позже момента отзыва (удаление пользователя). Записи живут не дольше срока
+ * действия токена — после этого токены отвергаются проверкой срока.
+ */
+@Component
+public class RevokedTokens {
+
+    private final long tokenLifetimeSeconds;
+    private final Map<String, Long> tokens = new ConcurrentHashMap<>();
+    private final Map<String, Long> subjects = new ConcurrentHashMap<>();
+
+    public RevokedTokens(@Value("${jwt.expiration-ms:3600000}") long tokenLifetimeMs) {
+        this.tokenLifetimeSeconds = tokenLifetimeMs / 1000;
+    }
+
+    public void revokeToken(String tokenId, Instant expiresAt) {
+        long until = expiresAt != null ? expiresAt.getEpochSecond() : Instant.now().getEpochSecond() + tokenLifetimeSeconds;
+        tokens.merge(tokenId, until, Math::max);
+    }
+
+    public void revokeSubject(String subject, Instant revokedAt) {
+        subjects.merge(subject, revokedAt.getEpochSecond(), Math::max);
+    }
+
+    public boolean isRevoked(String token, JwtUtils.TokenClaims claims) {
+        if (!tokens.isEmpty() && tokens.containsKey(JwtUtils.tokenId(token))) {
+            return true;
+        }
+        Long revokedAt = subjects.isEmpty() ? null : subjects.get(claims.subject());
+        return revokedAt != null && (claims.issuedAtSeconds() == null || claims.issuedAtSeconds() <= revokedAt);
+    }
+
+    @Scheduled(fixedDelayString = "${changefeed.purge-interval-ms:3600000}")
+    public void evictExpired() {
+        long now = Instant.now().getEpochSecond();
+        tokens.values().removeIf(until -> until < now);
+        subjects.values().removeIf(revokedAt -> revokedAt + tokenLifetimeSeconds < now);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.custom_protect.service;
+
+import com.example.custom_protect.audit.AuthAuditService;
+import com.example.custom_protect.changefeed.AuthChange;
+import com.example.custom_protect.changefeed.AuthChangeFeed;
+import com.example.custom_protect.datasource.ReadYourWritesGuard;
+import com.example.custom_protect.dto.RoleChangeRequest;
+import com.example.custom_protect.dto.RoleChangeResult;
+import com.example.custom_protect.model.en.AuthEventType;
+import com.example.custom_protect.model.en.RoleType;
+import com.example.custom_protect.repository.RoleAdminRepository;
+import com.example.custom_protect.repository.UserSelector;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Пакетная выдача и отзыв ролей. На каждую пачку — одно INSERT ... SELECT / DELETE, которое
+ * само возвращает изменённых пользователей; повторный запрос ничего не меняет. Изменившиеся пользователи
+ * попадают в {@link AuthChangeFeed}, и кэш ролей сбрасывается ровно для них на всех узлах.
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class RoleAdminService {
+
+    private static final int NAMES_PER_STATEMENT = 1000;
+
+    private final RoleAdminRepository roleAdminRepository;
+    private final ReadYourWritesGuard readYourWrites;
+    private final AuthAuditService auditService;
+    private final AuthChangeFeed changeFeed;
+
+    @Transactional
+    public RoleChangeResult grant(RoleChangeRequest request, String actor) {
+        return apply(request, actor, true);
+    }
+
+    @Transactional
+    public RoleChangeResult revoke(RoleChangeRequest request, String actor) {
+        return apply(request, actor, false);
+    }
+
+    private RoleChangeResult apply(RoleChangeRequest request, String actor, boolean grant) {
+        RoleType role = request.role();
+        if (role == null) {
+            throw new IllegalArgumentException("Не указана роль");
+        }
+
+        List<RoleAdminRepository.UserRef> affected = new ArrayList<>();
+        for (UserSelector selector : selectors(request)) {
+            affected.addAll(grant ? roleAdminRepository.grant(role, selector) : roleAdminRepository.revoke(role, selector));
+        }
+        int changed = affected.size();
+
+        if (!affected.isEmpty()) {
+            // кэш ролей сбрасывается лентой: здесь после коммита, на остальных узлах — при чтении ленты
+            afterCommit(() -> affected.forEach(user -> readYourWrites.markWritten(user.name())));
+            changeFeed.publish(affected.stream().map(user -> AuthChange.rolesChanged(user.id(), user.name())).toList());
+            auditService.publish(grant ? AuthEventType.ROLE_GRANTED : AuthEventType.ROLE_REVOKED, actor,
+                    role + ", пользователей: " + changed);
+        }
+        log.info("{} роли {}: изменено {} пользователей", grant ? "Выдача" : "Отзыв", role, changed);
+        return new RoleChangeResult(role, changed);
+    }
+
+    private static List<UserSelector> selectors(RoleChangeRequest request) {
+        boolean hasNames = request.names() != null && !request.names().isEmpty();
+        boolean hasFilter = request.filter() != null && !UserSelector.matching(request.filter()).isEmpty();
+        if (hasNames == hasFilter) {
+            throw new IllegalArgumentException("Укажите либо список пользователей, либо непустой фильтр");
+        }
+        if (hasFilter) {
+            return List.of(UserSelector.matching(request.filter()));
+        }
+        List<String> names = request.names().stream().distinct().toList();
+        List<UserSelector> selectors = new ArrayList<>();
+        for (int from = 0; from < names.size(); from += NAMES_PER_STATEMENT) {
+            selectors.add(UserSelector.byNames(names.subList(from, Math.min(from + NAMES_PER_STATEMENT, names.size()))));
+        }
+        return selectors;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
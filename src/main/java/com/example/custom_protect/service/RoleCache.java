@@ -0,0 +1,77 @@
+package com.example.custom_protect.service;
+
+import com.example.custom_protect.model.en.RoleType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Кэш ролей по имени пользователя для проверок {@code @JwtAuthWithRoles}. Записи живут
+ * {@code auth.role-cache.ttl-ms}; изменения ролей на этом узле сбрасывают их сразу через {@link #invalidate}.
+ * <p>
+ * Загрузка, начавшаяся до инвалидации, не кладёт в кэш устаревший результат: счётчик поколений
+ * увеличивается перед удалением записей и проверяется после вставки.
+ */
+@Component
+public class RoleCache {
+
+    private record Entry(Set<RoleType> roles, long loadedAt) {
+    }
+
+    private final long ttlNanos;
+    private final int maxSize;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final AtomicLong generation = new AtomicLong();
+
+    public RoleCache(@Value("${auth.role-cache.ttl-ms:30000}") long ttlMs,
+                     @Value("${auth.role-cache.max-size:100000}") int maxSize) {
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMs);
+        this.maxSize = maxSize;
+    }
+
+    public Set<RoleType> get(String name, Function<String, Set<RoleType>> loader) {
+        long now = System.nanoTime();
+        Entry cached = entries.get(name);
+        if (cached != null && now - cached.loadedAt() < ttlNanos) {
+            return cached.roles();
+        }
+        long seen = generation.get();
+        Set<RoleType> roles = loader.apply(name);
+        if (ttlNanos > 0 && entries.size() < maxSize) {
+            Entry entry = new Entry(roles, now);
+            entries.put(name, entry);
+            if (generation.get() != seen) {
+                // за время загрузки роли могли измениться — не оставляем, возможно, старое значение
+                entries.remove(name, entry);
+            }
+        }
+        return roles;
+    }
+
+    public void invalidate(Collection<String> names) {
+        if (names.isEmpty()) {
+            return;
+        }
+        generation.incrementAndGet();
+        names.forEach(entries::remove);
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+    @Scheduled(fixedDelayString = "${auth.role-cache.ttl-ms:30000}")
+    public void evictExpired() {
+        long now = System.nanoTime();
+        entries.values().removeIf(entry -> now - entry.loadedAt() >= ttlNanos);
+    }
+}
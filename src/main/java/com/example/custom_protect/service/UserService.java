@@ -1,28 +1,41 @@
 package com.example.custom_protect.service;
 
+import com.example.custom_protect.audit.AuthAuditService;
+import com.example.custom_protect.changefeed.AuthChange;
+import com.example.custom_protect.changefeed.AuthChangeFeed;
+import com.example.custom_protect.datasource.ReadYourWritesGuard;
 import com.example.custom_protect.dto.RegisterRequest;
 import com.example.custom_protect.exception.UserAlreadyExistsException;
 import com.example.custom_protect.model.Role;
 import com.example.custom_protect.model.User;
+import com.example.custom_protect.model.en.AuthEventType;
 import com.example.custom_protect.model.en.RoleType;
 import com.example.custom_protect.repository.UserRepository;
 
 import com.example.custom_protect.utils.PasswordEncoder;
-import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.text.MessageFormat;
 import java.util.List;
 import java.util.Optional;
 
 @Service
+@Slf4j
 @RequiredArgsConstructor
 public class UserService {
 
     private final UserRepository userRepository;
+    private final AuthAuditService auditService;
+    private final ReadYourWritesGuard readYourWrites;
+    private final AuthChangeFeed changeFeed;
 
+    @Transactional
     public ResponseEntity<String> registerUser(RegisterRequest request) {
         if (userRepository.existsByEmail(request.email()) || userRepository.existsByName(request.name())) {
             throw new UserAlreadyExistsException("Пользователь с таким email или именем уже существует");
@@ -39,7 +52,12 @@ public class UserService {
         user.setRoles(List.of(role));
 
         userRepository.save(user);
-        return ResponseEntity.ok(MessageFormat.format("Пользователь с именем {0} успешно зарегистрирован", user.getName()));
+        readYourWrites.markWritten(user.getName());
+        auditService.publish(AuthEventType.REGISTRATION, user.getName(), null); // email в журнал не пишем: это ПДн
+        // маркер записи: следующий запрос клиента на любом узле прочитает основную БД
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, readYourWrites.writeMarker().toString())
+                .body(MessageFormat.format("Пользователь с именем {0} успешно зарегистрирован", user.getName()));
     }
 
     public ResponseEntity<User> findById(Long id) {
@@ -47,15 +65,28 @@ public class UserService {
         return userOpt.map(ResponseEntity::ok).orElse(ResponseEntity.notFound().build());
     }
 
+    @Transactional
     public ResponseEntity<Void> deleteById(Long id) {
-        if (userRepository.existsById(id)) {
-            userRepository.deleteById(id);
+        Optional<User> userOpt = userRepository.findById(id);
+        if (userOpt.isPresent()) {
+            userRepository.delete(userOpt.get());
+            // токены удалённого пользователя перестают приниматься на всех узлах
+            changeFeed.publish(List.of(AuthChange.userDeleted(userOpt.get().getId(), userOpt.get().getName())));
             return ResponseEntity.noContent().build();
         }
         return ResponseEntity.notFound().build();
     }
-@PostConstruct
-    public void admin() {
+
+    /**
+     * Создаёт учётную запись администратора, если её ещё нет. Вызывается на этапе прогрева;
+     * безопасна при перезапуске на постоянной БД и при одновременном старте нескольких узлов.
+     *
+     * @return {@code true}, если администратор был создан этим вызовом
+     */
+    public boolean seedAdmin() {
+        if (userRepository.existsByName("admin")) {
+            return false;
+        }
         User user = User.builder()
                 .name("admin")
                 .email("admin@email")
@@ -64,7 +95,14 @@ public class UserService {
         Role role = Role.from(RoleType.ROLE_ADMIN);
         role.setUser(user);
         user.setRoles(List.of(role));
-        userRepository.save(user);
+        try {
+            userRepository.save(user);
+        } catch (DataIntegrityViolationException e) {
+            // другой узел успел создать администратора между проверкой и вставкой
+            log.info("Администратор уже создан другим узлом: {}", e.getMostSpecificCause().getMessage());
+            return false;
+        }
+        return true;
     }
 
 }
\ No newline at end of file
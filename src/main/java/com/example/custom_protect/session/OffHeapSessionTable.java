@@ -0,0 +1,250 @@
+package com.example.custom_protect.session;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Хэш-таблица с открытой адресацией (линейное пробирование) в direct-памяти: ключ — 128 бит,
+ * значение — id пользователя, маска ролей и срок действия. Объекты на сессию не создаются, поэтому
+ * миллионы живых сессий не нагружают GC.
+ * <p>
+ * Удаление — обратным сдвигом, без «надгробий»: цепочки пробирования остаются короткими и после
+ * массовой очистки. Чтение оптимистичное ({@link StampedLock}), запись — под эксклюзивной блокировкой.
+ * Нулевой ключ зарезервирован под пустой слот.
+ */
+final class OffHeapSessionTable {
+
+    record Session(long userId, int roleMask, long expiresAtSeconds) {
+    }
+
+    @FunctionalInterface
+    interface SlotPredicate {
+        boolean test(long userId, int roleMask, long expiresAtSeconds);
+    }
+
+    private static final int SLOT_BYTES = 40;
+    private static final int KEY_HI = 0;
+    private static final int KEY_LO = 8;
+    private static final int USER_ID = 16;
+    private static final int EXPIRES_AT = 24;
+    private static final int ROLE_MASK = 32;
+    private static final double MAX_LOAD = 0.75;
+    private static final int MAX_CAPACITY = 1 << 25; // 32M слотов, 1,25 ГБ — предел индексации ByteBuffer
+
+    private final ByteBuffer slots;
+    private final int capacity;
+    private final int indexMask;
+    private final int maxSize;
+    private final StampedLock lock = new StampedLock();
+    private int size;
+
+    OffHeapSessionTable(int requestedCapacity) {
+        if (requestedCapacity < 2 || requestedCapacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Недопустимая ёмкость таблицы сессий: " + requestedCapacity);
+        }
+        this.capacity = Integer.highestOneBit(requestedCapacity - 1) << 1;
+        this.indexMask = capacity - 1;
+        this.maxSize = (int) (capacity * MAX_LOAD);
+        this.slots = ByteBuffer.allocateDirect(capacity * SLOT_BYTES).order(ByteOrder.nativeOrder());
+    }
+
+    int capacity() {
+        return capacity;
+    }
+
+    long bytes() {
+        return (long) capacity * SLOT_BYTES;
+    }
+
+    int size() {
+        long stamp = lock.readLock();
+        try {
+            return size;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Вставляет или заменяет сессию.
+     *
+     * @return {@code false}, если таблица заполнена до предельной загрузки
+     */
+    boolean put(long hi, long lo, long userId, int roleMask, long expiresAtSeconds) {
+        requireKey(hi, lo);
+        long stamp = lock.writeLock();
+        try {
+            int i = find(hi, lo);
+            if (i < 0) {
+                if (size >= maxSize) {
+                    return false;
+                }
+                i = -i - 1;
+                slots.putLong(offset(i) + KEY_HI, hi);
+                slots.putLong(offset(i) + KEY_LO, lo);
+                size++;
+            }
+            int base = offset(i);
+            slots.putLong(base + USER_ID, userId);
+            slots.putLong(base + EXPIRES_AT, expiresAtSeconds);
+            slots.putInt(base + ROLE_MASK, roleMask);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    Session get(long hi, long lo) {
+        if (hi == 0 && lo == 0) {
+            return null;
+        }
+        long stamp = lock.tryOptimisticRead();
+        Session session = read(hi, lo);
+        if (lock.validate(stamp)) {
+            return session;
+        }
+        stamp = lock.readLock();
+        try {
+            return read(hi, lo);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    boolean remove(long hi, long lo) {
+        if (hi == 0 && lo == 0) {
+            return false;
+        }
+        long stamp = lock.writeLock();
+        try {
+            int i = find(hi, lo);
+            if (i < 0) {
+                return false;
+            }
+            deleteAt(i);
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Удаляет все сессии, подходящие под условие, за один проход по таблице.
+     */
+    int removeIf(SlotPredicate predicate) {
+        long stamp = lock.writeLock();
+        try {
+            int removed = 0;
+            int i = 0;
+            while (i < capacity) {
+                int base = offset(i);
+                if (!isEmpty(i) && predicate.test(slots.getLong(base + USER_ID), slots.getInt(base + ROLE_MASK),
+                        slots.getLong(base + EXPIRES_AT))) {
+                    // на место удалённого может сдвинуться следующий элемент — слот проверяется ещё раз
+                    deleteAt(i);
+                    removed++;
+                } else {
+                    i++;
+                }
+            }
+            return removed;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Чтение без блокировки: при гонке с записью результат может быть неконсистентным, но это
+     * отсекается проверкой штампа. Число шагов ограничено ёмкостью, чтобы не зациклиться.
+     */
+    private Session read(long hi, long lo) {
+        int i = home(hi, lo);
+        for (int probes = 0; probes < capacity; probes++) {
+            int base = offset(i);
+            long slotHi = slots.getLong(base + KEY_HI);
+            long slotLo = slots.getLong(base + KEY_LO);
+            if (slotHi == 0 && slotLo == 0) {
+                return null;
+            }
+            if (slotHi == hi && slotLo == lo) {
+                return new Session(slots.getLong(base + USER_ID), slots.getInt(base + ROLE_MASK),
+                        slots.getLong(base + EXPIRES_AT));
+            }
+            i = (i + 1) & indexMask;
+        }
+        return null;
+    }
+
+    /**
+     * Индекс слота с ключом или {@code -(свободный слот) - 1}. Вызывается под блокировкой записи.
+     */
+    private int find(long hi, long lo) {
+        int i = home(hi, lo);
+        while (true) {
+            if (isEmpty(i)) {
+                return -i - 1;
+            }
+            int base = offset(i);
+            if (slots.getLong(base + KEY_HI) == hi && slots.getLong(base + KEY_LO) == lo) {
+                return i;
+            }
+            i = (i + 1) & indexMask;
+        }
+    }
+
+    private void deleteAt(int hole) {
+        int j = hole;
+        while (true) {
+            j = (j + 1) & indexMask;
+            if (isEmpty(j)) {
+                break;
+            }
+            int home = home(slots.getLong(offset(j) + KEY_HI), slots.getLong(offset(j) + KEY_LO));
+            // элемент из j можно сдвинуть в дыру, только если его домашний слот не лежит циклически в (hole, j]
+            boolean reachable = hole <= j ? (hole < home && home <= j) : (hole < home || home <= j);
+            if (!reachable) {
+                copySlot(j, hole);
+                hole = j;
+            }
+        }
+        clearSlot(hole);
+        size--;
+    }
+
+    private void copySlot(int from, int to) {
+        int src = offset(from);
+        int dst = offset(to);
+        slots.putLong(dst + KEY_HI, slots.getLong(src + KEY_HI));
+        slots.putLong(dst + KEY_LO, slots.getLong(src + KEY_LO));
+        slots.putLong(dst + USER_ID, slots.getLong(src + USER_ID));
+        slots.putLong(dst + EXPIRES_AT, slots.getLong(src + EXPIRES_AT));
+        slots.putInt(dst + ROLE_MASK, slots.getInt(src + ROLE_MASK));
+    }
+
+    private void clearSlot(int i) {
+        int base = offset(i);
+        slots.putLong(base + KEY_HI, 0);
+        slots.putLong(base + KEY_LO, 0);
+    }
+
+    private boolean isEmpty(int i) {
+        int base = offset(i);
+        return slots.getLong(base + KEY_HI) == 0 && slots.getLong(base + KEY_LO) == 0;
+    }
+
+    private int home(long hi, long lo) {
+        // ключ — выход SHA-256, биты уже равномерны
+        return (int) (lo ^ (lo >>> 32)) & indexMask;
+    }
+
+    private static int offset(int i) {
+        return i * SLOT_BYTES;
+    }
+
+    private static void requireKey(long hi, long lo) {
+        if (hi == 0 && lo == 0) {
+            throw new IllegalArgumentException("Нулевой ключ зарезервирован под пустой слот");
+        }
+    }
+}
@@ -0,0 +1,261 @@
+package com.example.custom_protect.session;
+
+import com.example.custom_protect.model.en.RoleType;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Хранилище opaque-сессий: токен {@code rt_<32 бита времени выдачи + 128 случайных бит>} отображается на запись
+ * (id пользователя, маска ролей, срок) в {@link OffHeapSessionTable}. Таблица ключуется не самим
+ * токеном, а первыми 128 битами его SHA-256 — этот ключ можно писать в ленту изменений и журналы.
+ * Время выдачи нужно только для решения, искать ли незнакомый токен в основной БД.
+ * <p>
+ * Память под таблицу ({@code session.capacity} слотов по 40 байт) выделяется при первой сессии.
+ * Истёкшие сессии вычищаются раз в {@code session.sweep-interval-ms}.
+ * <p>
+ * На куче — только имена пользователей, у которых есть сессии: имя забывается вместе со сбросом
+ * сессий пользователя или при очистке, если живых сессий у него не осталось. Изменения таблицы,
+ * затрагивающие имена, сериализуются на мониторе хранилища; чтение идёт без блокировок.
+ */
+@Component
+@Slf4j
+public class SessionStore {
+
+    public static final String PREFIX = "rt_";
+
+    private static final int HANDLE_BYTES = 16;
+    private static final int ISSUED_AT_BYTES = 4;
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    public record Session(long userId, String name, Set<RoleType> roles, long expiresAtSeconds) {
+    }
+
+    private final SecureRandom random = new SecureRandom();
+    private final int capacity;
+    private final Duration ttl;
+    private final Map<Long, String> names = new ConcurrentHashMap<>();
+    private volatile OffHeapSessionTable table;
+
+    public SessionStore(@Value("${session.capacity:1048576}") int capacity,
+                        @Value("${session.ttl-ms:900000}") long ttlMs) {
+        this.capacity = capacity;
+        this.ttl = Duration.ofMillis(ttlMs);
+    }
+
+    public static boolean isOpaque(String token) {
+        return token != null && token.startsWith(PREFIX);
+    }
+
+    /**
+     * Ключ сессии: base64url первых 128 бит SHA-256 от токена.
+     */
+    public static String keyOf(String token) {
+        MessageDigest digest = SHA_256.get();
+        byte[] hash = digest.digest(token.getBytes(StandardCharsets.US_ASCII));
+        return ENCODER.encodeToString(Arrays.copyOf(hash, HANDLE_BYTES));
+    }
+
+    public static int roleMask(Collection<RoleType> roles) {
+        int mask = 0;
+        for (RoleType role : roles) {
+            mask |= role.mask();
+        }
+        return mask;
+    }
+
+    public static Set<RoleType> roles(int mask) {
+        Set<RoleType> roles = EnumSet.noneOf(RoleType.class);
+        for (RoleType role : RoleType.values()) {
+            if ((mask & role.mask()) != 0) {
+                roles.add(role);
+            }
+        }
+        return roles;
+    }
+
+    public Duration ttl() {
+        return ttl;
+    }
+
+    public String newToken() {
+        byte[] secret = new byte[HANDLE_BYTES];
+        random.nextBytes(secret);
+        ByteBuffer handle = ByteBuffer.allocate(ISSUED_AT_BYTES + HANDLE_BYTES)
+                .putInt((int) Instant.now().getEpochSecond())
+                .put(secret);
+        return PREFIX + ENCODER.encodeToString(handle.array());
+    }
+
+    /**
+     * Время выдачи из токена. Не защищено от подделки: годится лишь как фильтр перед обращением к БД.
+     */
+    public static Optional<Instant> issuedAt(String token) {
+        if (!isOpaque(token)) {
+            return Optional.empty();
+        }
+        byte[] handle;
+        try {
+            handle = DECODER.decode(token.substring(PREFIX.length()));
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        if (handle.length != ISSUED_AT_BYTES + HANDLE_BYTES) {
+            return Optional.empty();
+        }
+        return Optional.of(Instant.ofEpochSecond(Integer.toUnsignedLong(ByteBuffer.wrap(handle).getInt())));
+    }
+
+    /**
+     * Сохраняет сессию; истёкшие и с некорректным ключом пропускаются.
+     *
+     * @return {@code false}, если таблица заполнена даже после очистки истёкших сессий
+     */
+    public synchronized boolean put(String key, long userId, String name, int roleMask, Instant expiresAt) {
+        if (expiresAt.getEpochSecond() <= Instant.now().getEpochSecond()) {
+            return true;
+        }
+        ByteBuffer k = decode(key);
+        if (k == null) {
+            return true;
+        }
+        names.put(userId, name);
+        if (table().put(k.getLong(0), k.getLong(8), userId, roleMask, expiresAt.getEpochSecond())) {
+            return true;
+        }
+        sweepExpired();
+        return table().put(k.getLong(0), k.getLong(8), userId, roleMask, expiresAt.getEpochSecond());
+    }
+
+    public Optional<Session> lookup(String token) {
+        OffHeapSessionTable t = table;
+        if (t == null || !isOpaque(token)) {
+            return Optional.empty();
+        }
+        ByteBuffer k = decode(keyOf(token));
+        OffHeapSessionTable.Session s = k == null ? null : t.get(k.getLong(0), k.getLong(8));
+        if (s == null || s.expiresAtSeconds() <= Instant.now().getEpochSecond()) {
+            return Optional.empty();
+        }
+        String name = names.get(s.userId());
+        if (name == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new Session(s.userId(), name, roles(s.roleMask()), s.expiresAtSeconds()));
+    }
+
+    public void remove(String key) {
+        OffHeapSessionTable t = table;
+        ByteBuffer k = t == null ? null : decode(key);
+        if (k != null) {
+            t.remove(k.getLong(0), k.getLong(8));
+        }
+    }
+
+    /**
+     * Сбрасывает все сессии пользователей (смена ролей, удаление) за один проход по таблице.
+     */
+    public synchronized void dropUsers(Collection<Long> userIds) {
+        OffHeapSessionTable t = table;
+        if (t == null || userIds.isEmpty()) {
+            return;
+        }
+        Set<Long> ids = Set.copyOf(userIds);
+        int removed = t.removeIf((userId, roleMask, expiresAt) -> ids.contains(userId));
+        ids.forEach(names::remove);
+        if (removed > 0) {
+            log.debug("Сброшено сессий: {} (пользователей: {})", removed, ids.size());
+        }
+    }
+
+    public int size() {
+        OffHeapSessionTable t = table;
+        return t == null ? 0 : t.size();
+    }
+
+    int knownUsers() {
+        return names.size();
+    }
+
+    @Scheduled(fixedDelayString = "${session.sweep-interval-ms:60000}")
+    public synchronized void sweepExpired() {
+        OffHeapSessionTable t = table;
+        if (t == null) {
+            return;
+        }
+        long now = Instant.now().getEpochSecond();
+        Set<Long> live = new HashSet<>();
+        int removed = t.removeIf((userId, roleMask, expiresAt) -> {
+            if (expiresAt <= now) {
+                return true;
+            }
+            live.add(userId);
+            return false;
+        });
+        // заодно забываются имена пользователей, чьи сессии истекли или завершены выходом
+        names.keySet().retainAll(live);
+        if (removed > 0) {
+            log.debug("Удалено истёкших сессий: {}", removed);
+        }
+    }
+
+    private OffHeapSessionTable table() {
+        OffHeapSessionTable t = table;
+        if (t == null) {
+            synchronized (this) {
+                t = table;
+                if (t == null) {
+                    t = new OffHeapSessionTable(capacity);
+                    table = t;
+                    log.info("Выделено {} МБ direct-памяти под {} слотов сессий",
+                            t.bytes() / (1024 * 1024), t.capacity());
+                }
+            }
+        }
+        return t;
+    }
+
+    private static ByteBuffer decode(String key) {
+        byte[] bytes;
+        try {
+            bytes = DECODER.decode(key);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (bytes.length != HANDLE_BYTES) {
+            return null;
+        }
+        ByteBuffer k = ByteBuffer.wrap(bytes);
+        if (k.getLong(0) == 0 && k.getLong(8) == 0) {
+            // нулевой ключ зарезервирован таблицей; вероятность 2^-128
+            return null;
+        }
+        return k;
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.custom_protect.warmup;
+
+import com.example.custom_protect.jwt.JwtUtils;
+import com.example.custom_protect.repository.UserRepository;
+import com.example.custom_protect.security.AuthenticatedUser;
+import com.example.custom_protect.service.AuthService;
+import com.example.custom_protect.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Прогрев перед приёмом трафика: создаёт администратора, заполняет пулы Hikari и прогоняет
+ * горячие пути (JWT, запросы репозитория, Jackson, диспетчеризацию через интерсептор), чтобы
+ * первые запросы после выката не попадали на холодный JIT и пустой пул.
+ * <p>
+ * Выполняется как {@link ApplicationRunner}: Spring Boot переводит readiness в
+ * {@link ReadinessState#ACCEPTING_TRAFFIC} только после завершения всех раннеров, так что проба
+ * {@code /actuator/health/readiness} остаётся OUT_OF_SERVICE, пока прогрев не закончится.
+ * Отключается {@code warmup.enabled=false} (администратор создаётся в любом случае).
+ */
+@Component
+@Slf4j
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class StartupWarmUp implements ApplicationRunner {
+
+    private static final String ADMIN = "admin";
+    private static final String DISPATCH_PATH = "/api/v1/test/me";
+
+    private final UserService userService;
+    private final UserRepository userRepository;
+    private final AuthService authService;
+    private final JwtUtils jwtUtils;
+    private final ObjectMapper objectMapper;
+    private final ObjectProvider<HikariDataSource> pools;
+    private final ApplicationContext applicationContext;
+    private final boolean enabled;
+    private final int iterations;
+
+    private volatile long warmUpMillis = -1;
+
+    public StartupWarmUp(UserService userService,
+                         UserRepository userRepository,
+                         AuthService authService,
+                         JwtUtils jwtUtils,
+                         ObjectMapper objectMapper,
+                         ObjectProvider<HikariDataSource> pools,
+                         ApplicationContext applicationContext,
+                         @Value("${warmup.enabled:true}") boolean enabled,
+                         @Value("${warmup.iterations:200}") int iterations) {
+        this.userService = userService;
+        this.userRepository = userRepository;
+        this.authService = authService;
+        this.jwtUtils = jwtUtils;
+        this.objectMapper = objectMapper;
+        this.pools = pools;
+        this.applicationContext = applicationContext;
+        this.enabled = enabled;
+        this.iterations = iterations;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        AvailabilityChangeEvent.publish(applicationContext, ReadinessState.REFUSING_TRAFFIC);
+        long start = System.nanoTime();
+
+        if (userService.seedAdmin()) {
+            log.info("Создана учётная запись администратора");
+        }
+        if (enabled) {
+            long pools = timed(this::fillPools);
+            long tokens = timed(this::warmTokens);
+            long queries = timed(this::warmRepository);
+            long dispatch = timed(this::warmDispatch);
+            log.info("Этапы прогрева ({} итераций): пулы {} мс, токены {} мс, запросы {} мс, HTTP {} мс",
+                    iterations, pools, tokens, queries, dispatch);
+        }
+
+        warmUpMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Прогрев завершён за {} мс", warmUpMillis);
+    }
+
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        Duration timeTaken = event.getTimeTaken();
+        log.info("Готов к трафику через {} мс после старта, из них прогрев {} мс",
+                timeTaken == null ? "?" : timeTaken.toMillis(), warmUpMillis);
+    }
+
+    /**
+     * Длительность прогрева в миллисекундах или {@code -1}, если он ещё не завершён.
+     */
+    public long warmUpMillis() {
+        return warmUpMillis;
+    }
+
+    private void fillPools() {
+        pools.orderedStream().forEach(pool -> {
+            List<Connection> held = new ArrayList<>();
+            try {
+                held.add(pool.getConnection());
+                // minimumIdle известен только после старта пула, т.е. после первого соединения
+                int target = Math.min(pool.getMinimumIdle(), pool.getMaximumPoolSize());
+                while (held.size() < target) {
+                    held.add(pool.getConnection());
+                }
+            } catch (SQLException e) {
+                log.warn("Не удалось заполнить пул {}: {}", pool.getPoolName(), e.getMessage());
+            } finally {
+                held.forEach(StartupWarmUp::closeQuietly);
+            }
+            log.debug("Пул {} прогрет: {} соединений", pool.getPoolName(), held.size());
+        });
+    }
+
+    private void warmTokens() {
+        for (int i = 0; i < iterations; i++) {
+            String token = jwtUtils.createToken(ADMIN);
+            JwtUtils.TokenClaims claims = authService.verifyToken(token);
+            try {
+                objectMapper.writeValueAsBytes(AuthenticatedUser.of(token, claims, Set.of()));
+            } catch (Exception e) {
+                log.warn("Прогрев Jackson не удался: {}", e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private void warmRepository() {
+        List<String> names = List.of(ADMIN);
+        for (int i = 0; i < iterations; i++) {
+            userRepository.findByName(ADMIN);
+            userRepository.existsByName(ADMIN);
+            userRepository.existsByEmail("admin@email");
+            userRepository.findAuthoritiesByName(ADMIN);
+            userRepository.findRolesByNameIn(names);
+        }
+    }
+
+    /**
+     * Настоящие HTTP-запросы через локальный сервер: прогревает Tomcat/Netty, интерсептор
+     * (или WebFilter), резолвер {@code @CurrentUser} и сериализацию ответа. В тестах без
+     * сервера (MockMvc) шаг пропускается.
+     */
+    private void warmDispatch() {
+        if (!(applicationContext instanceof WebServerApplicationContext web)
+                || web.getWebServer() == null || web.getWebServer().getPort() <= 0) {
+            return;
+        }
+        URI uri = URI.create("http://localhost:" + web.getWebServer().getPort() + DISPATCH_PATH);
+        HttpRequest request = HttpRequest.newBuilder(uri)
+                .header("Authorization", "Bearer " + jwtUtils.createToken(ADMIN))
+                .timeout(Duration.ofSeconds(5))
+                .GET()
+                .build();
+        HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+        for (int i = 0; i < iterations; i++) {
+            try {
+                HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                if (response.statusCode() != 200) {
+                    log.warn("Прогрев {} вернул HTTP {}", DISPATCH_PATH, response.statusCode());
+                    return;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Прогрев {} не удался: {}", DISPATCH_PATH, e.getMessage());
+                return;
+            }
+        }
+    }
+
+    private static long timed(Runnable stage) {
+        long start = System.nanoTime();
+        stage.run();
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+            // соединение вернётся в пул или будет вытеснено
+        }
+    }
+}
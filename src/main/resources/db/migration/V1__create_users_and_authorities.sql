@@ -0,0 +1,20 @@
+CREATE TABLE users
+(
+    id       BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name     VARCHAR(255) NOT NULL,
+    email    VARCHAR(255) NOT NULL,
+    password VARCHAR(255) NOT NULL,
+    CONSTRAINT uk_users_name UNIQUE (name),
+    CONSTRAINT uk_users_email UNIQUE (email)
+);
+
+CREATE TABLE authorities
+(
+    id        BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    authority VARCHAR(32) NOT NULL,
+    user_id   BIGINT      NOT NULL,
+    CONSTRAINT fk_authorities_user FOREIGN KEY (user_id) REFERENCES users (id)
+);
+
+-- existsByNameAndRolesAuthorityIn: users.name -> authorities(user_id, authority) без чтения строк таблицы
+CREATE INDEX idx_authorities_user_authority ON authorities (user_id, authority);
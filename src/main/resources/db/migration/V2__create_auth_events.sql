@@ -0,0 +1,11 @@
+CREATE TABLE auth_events
+(
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    event_type VARCHAR(32)                 NOT NULL,
+    name       VARCHAR(255),
+    detail     VARCHAR(512),
+    created_at TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+-- очистка по сроку хранения
+CREATE INDEX idx_auth_events_created_at ON auth_events (created_at);
@@ -0,0 +1,13 @@
+-- пакетная выдача ролей идемпотентна: одна и та же роль у пользователя не повторяется
+DELETE FROM authorities a
+WHERE EXISTS (SELECT 1
+              FROM authorities b
+              WHERE b.user_id = a.user_id
+                AND b.authority = a.authority
+                AND b.id < a.id);
+
+-- уникальный индекс ограничения заменяет обычный и обслуживает те же запросы
+DROP INDEX idx_authorities_user_authority;
+
+ALTER TABLE authorities
+    ADD CONSTRAINT uk_authorities_user_authority UNIQUE (user_id, authority);
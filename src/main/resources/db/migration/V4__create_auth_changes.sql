@@ -0,0 +1,13 @@
+-- Лента изменений авторизации для синхронизации узлов: только вставки, узлы читают по id > последнего
+CREATE TABLE auth_changes
+(
+    id          BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    change_type VARCHAR(32)                 NOT NULL,
+    subject     VARCHAR(255)                NOT NULL,
+    token_id    VARCHAR(128),
+    expires_at  TIMESTAMP(6) WITH TIME ZONE,
+    created_at  TIMESTAMP(6) WITH TIME ZONE NOT NULL
+);
+
+-- стартовая позиция нового узла и очистка по сроку хранения
+CREATE INDEX idx_auth_changes_created_at ON auth_changes (created_at);
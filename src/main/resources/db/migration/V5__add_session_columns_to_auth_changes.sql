@@ -0,0 +1,3 @@
+-- opaque-сессии: узлы восстанавливают запись сессии из ленты и сбрасывают сессии пользователя по его id
+ALTER TABLE auth_changes ADD COLUMN user_id BIGINT;
+ALTER TABLE auth_changes ADD COLUMN role_mask INTEGER;
@@ -0,0 +1,2 @@
+-- узел, до которого новая opaque-сессия ещё не дошла лентой, ищет её по ключу в основной БД
+CREATE INDEX idx_auth_changes_token_id ON auth_changes (token_id);
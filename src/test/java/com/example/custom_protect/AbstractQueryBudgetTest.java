@@ -0,0 +1,89 @@
+package com.example.custom_protect;
+
+import com.example.custom_protect.dto.RegisterRequest;
+import com.example.custom_protect.service.UserService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.TestInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Основа для тестов бюджета запросов: бюджет объявляется аннотацией {@link QueryBudget}
+ * на тестовом методе, а считается только то, что выполнено внутри {@link #withinBudget}.
+ */
+@AutoConfigureMockMvc
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+public abstract class AbstractQueryBudgetTest extends AbstractIntegrationTest {
+
+    @FunctionalInterface
+    protected interface Request {
+        void perform() throws Exception;
+    }
+
+    @Autowired
+    protected MockMvc mockMvc;
+
+    @Autowired
+    protected UserService userService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private QueryBudget budget;
+
+    @BeforeEach
+    void resolveBudget(TestInfo testInfo) {
+        budget = testInfo.getTestMethod()
+                .map(m -> m.getAnnotation(QueryBudget.class))
+                .orElseThrow(() -> new IllegalStateException("Тест без @QueryBudget: " + testInfo.getDisplayName()));
+    }
+
+    protected void withinBudget(Request request) throws Exception {
+        Statistics stats = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        stats.clear();
+
+        request.perform();
+
+        long statements = stats.getPrepareStatementCount();
+        long entityLoads = stats.getEntityLoadCount();
+        long collectionFetches = stats.getCollectionFetchCount();
+        String actual = String.format("SQL=%d, сущностей=%d, коллекций=%d", statements, entityLoads, collectionFetches);
+        assertAll(
+                () -> assertTrue(statements <= budget.statements(),
+                        "Превышен бюджет SQL-выражений " + budget.statements() + ": " + actual),
+                () -> assertTrue(entityLoads <= budget.entityLoads(),
+                        "Превышен бюджет загрузок сущностей " + budget.entityLoads() + ": " + actual),
+                () -> assertTrue(collectionFetches <= budget.collectionFetches(),
+                        "Превышен бюджет загрузок коллекций " + budget.collectionFetches() + ": " + actual)
+        );
+    }
+
+    protected static String uniqueName(String prefix) {
+        return prefix + "_" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    protected String registerAndLogin(String name, String password) throws Exception {
+        userService.registerUser(new RegisterRequest(name, password, name + "@example.com"));
+        return mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(credentials(name, password)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    protected static String credentials(String name, String password) {
+        return String.format("{\"name\":\"%s\",\"password\":\"%s\"}", name, password);
+    }
+}
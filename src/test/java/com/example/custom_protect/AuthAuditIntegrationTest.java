@@ -0,0 +1,91 @@
+package com.example.custom_protect;
+
+import com.example.custom_protect.audit.AuthAuditService;
+import com.example.custom_protect.audit.AuthEventWriter;
+import com.example.custom_protect.audit.OverflowPolicy;
+import com.example.custom_protect.dto.LoginRequest;
+import com.example.custom_protect.dto.RegisterRequest;
+import com.example.custom_protect.exception.AuthenticationException;
+import com.example.custom_protect.model.en.AuthEventType;
+import com.example.custom_protect.service.AuthService;
+import com.example.custom_protect.service.UserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+class AuthAuditIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private AuthAuditService auditService;
+
+    @Autowired
+    private AuthEventWriter writer;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void failedLogin_isWrittenToAuditTable() {
+        assertThrows(AuthenticationException.class,
+                () -> authService.authenticate(new LoginRequest("ghost", "nope")));
+
+        // остановка писателя дописывает всё, что осталось в буфере
+        writer.stop();
+        writer.start();
+
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM auth_events WHERE event_type = ? AND name = ?",
+                Integer.class, AuthEventType.LOGIN_FAILURE.name(), "ghost");
+        assertEquals(1, count);
+    }
+
+    @Test
+    void roleDenial_recordsSubjectAndRegistrationOmitsEmail() throws Exception {
+        String name = "audit" + UUID.randomUUID().toString().substring(0, 8);
+        userService.registerUser(new RegisterRequest(name, "secret", name + "@example.com"));
+        String token = mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType("application/json")
+                        .content("{\"name\":\"%s\",\"password\":\"secret\"}".formatted(name)))
+                .andReturn().getResponse().getContentAsString();
+
+        mockMvc.perform(get("/api/v1/test/admin").header("Authorization", "Bearer " + token))
+                .andExpect(status().isUnauthorized());
+
+        writer.stop();
+        writer.start();
+
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM auth_events WHERE event_type = ? AND name = ?",
+                Integer.class, AuthEventType.ACCESS_DENIED.name(), name));
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM auth_events WHERE detail LIKE ?", Integer.class, "%" + name + "@%"));
+    }
+
+    @Test
+    void overflow_dropsAndCounts() {
+        AuthAuditService small = new AuthAuditService(4, OverflowPolicy.DROP, 0);
+        for (int i = 0; i < 10; i++) {
+            small.publish(AuthEventType.ACCESS_DENIED, null, "x");
+        }
+        assertEquals(6, small.droppedCount());
+    }
+}
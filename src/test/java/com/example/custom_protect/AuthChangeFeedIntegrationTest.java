@@ -0,0 +1,277 @@
+package com.example.custom_protect;
+
+import com.example.custom_protect.changefeed.AuthChangeFeed;
+import com.example.custom_protect.dto.LoginRequest;
+import com.example.custom_protect.dto.RegisterRequest;
+import com.example.custom_protect.dto.RoleChangeRequest;
+import com.example.custom_protect.exception.AuthenticationException;
+import com.example.custom_protect.jwt.JwtUtils;
+import com.example.custom_protect.model.en.RoleType;
+import com.example.custom_protect.model.en.TokenType;
+import com.example.custom_protect.repository.UserRepository;
+import com.example.custom_protect.security.AuthenticatedUser;
+import com.example.custom_protect.service.AuthService;
+import com.example.custom_protect.service.RoleAdminService;
+import com.example.custom_protect.service.RoleCache;
+import com.example.custom_protect.service.UserService;
+import com.example.custom_protect.session.SessionStore;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.scheduling.TaskScheduler;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Несколько узлов приложения в одной JVM поверх одной H2: изменения, сделанные на одном узле,
+ * должны дойти до остальных через ленту {@code auth_changes} за ограниченное время.
+ */
+class AuthChangeFeedIntegrationTest {
+
+    private static final long POLL_INTERVAL_MS = 100;
+    private static final Duration PROPAGATION_BOUND = Duration.ofSeconds(3);
+
+    private static ConfigurableApplicationContext nodeA;
+    private static ConfigurableApplicationContext nodeB;
+
+    @BeforeAll
+    static void startNodes() {
+        nodeA = startNode();
+        nodeB = startNode();
+    }
+
+    @AfterAll
+    static void stopNodes() {
+        if (nodeB != null) nodeB.close();
+        if (nodeA != null) nodeA.close();
+    }
+
+    @Test
+    void roleChangeOnOneNodeEvictsCachedRolesOnAnother() {
+        String name = register(nodeA);
+        assertEquals(Set.of(RoleType.ROLE_USER), nodeB.getBean(AuthService.class).loadRoles(name));
+
+        nodeA.getBean(RoleAdminService.class)
+                .grant(new RoleChangeRequest(RoleType.ROLE_ADMIN, List.of(name), null), "admin");
+
+        awaitTrue(() -> nodeB.getBean(AuthService.class).loadRoles(name).contains(RoleType.ROLE_ADMIN));
+    }
+
+    @Test
+    void pollIsNotDelayedByBusySpringScheduler() throws Exception {
+        String name = register(nodeA);
+        assertEquals(Set.of(RoleType.ROLE_USER), nodeB.getBean(AuthService.class).loadRoles(name));
+        CountDownLatch release = new CountDownLatch(1);
+        // долгая очистка на общем планировщике @Scheduled
+        nodeB.getBean(TaskScheduler.class).schedule(() -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, Instant.now());
+        try {
+            nodeA.getBean(RoleAdminService.class)
+                    .grant(new RoleChangeRequest(RoleType.ROLE_ADMIN, List.of(name), null), "admin");
+
+            awaitTrue(() -> nodeB.getBean(AuthService.class).loadRoles(name).contains(RoleType.ROLE_ADMIN));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void logoutOnOneNodeRejectsTokenOnAnother() {
+        String name = register(nodeA);
+        String token = nodeA.getBean(JwtUtils.class).createToken(name);
+        JwtUtils.TokenClaims claims = nodeB.getBean(AuthService.class).verifyToken(token);
+
+        nodeA.getBean(AuthService.class).logout(AuthenticatedUser.of(token, claims, Set.of(RoleType.ROLE_USER)));
+
+        assertThrows(AuthenticationException.class, () -> nodeA.getBean(AuthService.class).verifyToken(token));
+        awaitTrue(() -> isRejected(nodeB, token));
+        String other = nodeA.getBean(JwtUtils.class).createToken(register(nodeA));
+        assertFalse(isRejected(nodeB, other), "Отзыв одного токена не должен задевать другие");
+    }
+
+    @Test
+    void deletedUserTokensAreRejectedOnAllNodes() {
+        String name = register(nodeA);
+        String token = nodeB.getBean(JwtUtils.class).createToken(name);
+        Long id = nodeA.getBean(UserRepository.class).findByName(name).orElseThrow().getId();
+
+        nodeA.getBean(UserService.class).deleteById(id);
+
+        assertTrue(isRejected(nodeA, token));
+        awaitTrue(() -> isRejected(nodeB, token));
+    }
+
+    @Test
+    void nodeStartedLaterReplaysActiveRevocations() {
+        String name = register(nodeA);
+        String token = nodeA.getBean(JwtUtils.class).createToken(name);
+        JwtUtils.TokenClaims claims = nodeA.getBean(AuthService.class).verifyToken(token);
+        nodeA.getBean(AuthService.class).logout(AuthenticatedUser.of(token, claims, Set.of()));
+
+        try (ConfigurableApplicationContext nodeC = startNode()) {
+            assertTrue(isRejected(nodeC, token), "Новый узел должен знать об отзыве сразу после старта");
+        }
+    }
+
+    @Test
+    void opaqueSessionIsReplicatedAndDroppedOnRoleChange() {
+        String name = register(nodeA);
+        String token = nodeA.getBean(AuthService.class)
+                .authenticate(new LoginRequest(name, "secret", TokenType.OPAQUE)).getBody();
+
+        assertTrue(nodeA.getBean(SessionStore.class).lookup(token).isPresent());
+        awaitTrue(() -> nodeB.getBean(SessionStore.class).lookup(token).isPresent());
+
+        nodeB.getBean(RoleAdminService.class)
+                .grant(new RoleChangeRequest(RoleType.ROLE_ADMIN, List.of(name), null), "admin");
+
+        assertTrue(nodeB.getBean(SessionStore.class).lookup(token).isEmpty());
+        awaitTrue(() -> nodeA.getBean(SessionStore.class).lookup(token).isEmpty());
+    }
+
+    @Test
+    void opaqueLogoutOnOneNodeRemovesSessionOnAnother() {
+        String name = register(nodeA);
+        String token = nodeA.getBean(AuthService.class)
+                .authenticate(new LoginRequest(name, "secret", TokenType.OPAQUE)).getBody();
+        awaitTrue(() -> nodeB.getBean(SessionStore.class).lookup(token).isPresent());
+        SessionStore.Session session = nodeB.getBean(AuthService.class).verifySession(token);
+
+        nodeB.getBean(AuthService.class).logout(AuthenticatedUser.of(token,
+                new JwtUtils.TokenClaims(session.name(), null, session.expiresAtSeconds()), session.roles()));
+
+        awaitTrue(() -> nodeA.getBean(SessionStore.class).lookup(token).isEmpty());
+    }
+
+    @Test
+    void changeCommittedOutOfIdOrderIsNotSkipped() throws Exception {
+        String early = "gap_early_" + UUID.randomUUID();
+        String late = "gap_late_" + UUID.randomUUID();
+        RoleCache cacheB = nodeB.getBean(RoleCache.class);
+        Set<RoleType> stale = EnumSet.of(RoleType.ROLE_ADMIN);
+        cacheB.get(early, n -> stale);
+        cacheB.get(late, n -> stale);
+
+        DataSource dataSource = nodeA.getBean(DataSource.class);
+        try (Connection slow = dataSource.getConnection(); Connection fast = dataSource.getConnection()) {
+            slow.setAutoCommit(false);
+            insertRolesChanged(slow, early);  // меньший id, но коммит позже
+            insertRolesChanged(fast, late);
+
+            awaitTrue(() -> cacheB.get(late, n -> Set.of()) != stale);
+            assertSame(stale, cacheB.get(early, n -> Set.of()), "Незакоммиченное изменение не должно быть видно");
+
+            slow.commit();
+        }
+        awaitTrue(() -> cacheB.get(early, n -> Set.of()) != stale);
+    }
+
+    @Test
+    void purgeKeepsSessionsYoungerThanSessionTtl() throws Exception {
+        String key = "purge_" + UUID.randomUUID();
+        // срок сессии больше и срока хранения, и срока JWT — запись должна пережить очистку
+        try (ConfigurableApplicationContext nodeC = startNode("changefeed.retention-ms=1000", "session.ttl-ms=7200000");
+             Connection connection = nodeC.getBean(DataSource.class).getConnection()) {
+            try (PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO auth_changes (change_type, user_id, subject, token_id, role_mask, expires_at, created_at) "
+                            + "VALUES ('SESSION_CREATED', 1, 'admin', ?, 1, ?, ?)")) {
+                Instant createdAt = Instant.now().minus(Duration.ofMinutes(90));
+                ps.setString(1, key);
+                ps.setTimestamp(2, Timestamp.from(createdAt.plus(Duration.ofHours(2))));
+                ps.setTimestamp(3, Timestamp.from(createdAt));
+                ps.executeUpdate();
+            }
+
+            nodeC.getBean(AuthChangeFeed.class).purge();
+
+            try (PreparedStatement ps = connection.prepareStatement("SELECT COUNT(*) FROM auth_changes WHERE token_id = ?")) {
+                ps.setString(1, key);
+                try (ResultSet rs = ps.executeQuery()) {
+                    assertTrue(rs.next());
+                    assertEquals(1, rs.getInt(1));
+                }
+            }
+        }
+    }
+
+    private static ConfigurableApplicationContext startNode(String... properties) {
+        return new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:feeddb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=false",
+                        "spring.datasource.driver-class-name=org.h2.Driver",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.hibernate.ddl-auto=validate",
+                        "spring.jpa.show-sql=false",
+                        "warmup.enabled=false",
+                        "session.capacity=1024",
+                        "changefeed.poll-interval-ms=" + POLL_INTERVAL_MS)
+                // аргументы командной строки, а не default properties: те перекрываются application.yml
+                .run(Arrays.stream(properties).map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    private static String register(ConfigurableApplicationContext node) {
+        String name = "feed_" + UUID.randomUUID().toString().substring(0, 8);
+        node.getBean(UserService.class).registerUser(new RegisterRequest(name, "secret", name + "@example.com"));
+        return name;
+    }
+
+    private static boolean isRejected(ConfigurableApplicationContext node, String token) {
+        try {
+            node.getBean(AuthService.class).verifyToken(token);
+            return false;
+        } catch (AuthenticationException e) {
+            return true;
+        }
+    }
+
+    private static void insertRolesChanged(Connection connection, String name) throws Exception {
+        try (PreparedStatement ps = connection.prepareStatement(
+                "INSERT INTO auth_changes (change_type, subject, created_at) VALUES ('ROLES_CHANGED', ?, ?)")) {
+            ps.setString(1, name);
+            ps.setTimestamp(2, Timestamp.from(Instant.now()));
+            ps.executeUpdate();
+        }
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) {
+        long deadline = System.nanoTime() + PROPAGATION_BOUND.toNanos();
+        while (!condition.getAsBoolean()) {
+            if (System.nanoTime() > deadline) {
+                fail("Изменение не дошло до узла за " + PROPAGATION_BOUND.toMillis() + " мс");
+            }
+            try {
+                Thread.sleep(POLL_INTERVAL_MS / 2);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail("Прервано ожидание");
+            }
+        }
+    }
+}
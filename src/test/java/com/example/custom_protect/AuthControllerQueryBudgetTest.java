@@ -0,0 +1,122 @@
+package com.example.custom_protect;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AuthControllerQueryBudgetTest extends AbstractQueryBudgetTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    @QueryBudget(statements = 4)
+    void register() throws Exception {
+        String name = uniqueName("reg");
+        String body = String.format("{\"name\":\"%s\",\"password\":\"pwd\",\"email\":\"%s@example.com\"}", name, name);
+
+        withinBudget(() -> mockMvc.perform(post("/api/v1/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    @QueryBudget(statements = 1, entityLoads = 1)
+    void login() throws Exception {
+        String name = uniqueName("login");
+        registerAndLogin(name, "pwd");
+
+        withinBudget(() -> mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(credentials(name, "pwd")))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    void introspect_resolvesRolesWithOneQuery() throws Exception {
+        String first = registerAndLogin(uniqueName("gw"), "pwd");
+        String second = registerAndLogin(uniqueName("gw"), "pwd");
+        StringBuilder tokens = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            tokens.append('"').append(i % 2 == 0 ? first : second).append("\",");
+        }
+        tokens.append("\"not.a.token\"");
+        String gateway = adminToken();
+        // роли самого шлюза попадают в кэш до замера
+        mockMvc.perform(post("/api/v1/auth/introspect")
+                        .header("Authorization", "Bearer " + gateway)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"tokens\":[]}"))
+                .andExpect(status().isOk());
+
+        withinBudget(() -> mockMvc.perform(post("/api/v1/auth/introspect")
+                        .header("Authorization", "Bearer " + gateway)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"tokens\":[" + tokens + "]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(51))
+                .andExpect(jsonPath("$[0].active").value(true))
+                .andExpect(jsonPath("$[0].roles[0]").value("ROLE_USER"))
+                .andExpect(jsonPath("$[0].exp").isNumber())
+                .andExpect(jsonPath("$[50].active").value(false)));
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    void introspect_requiresGatewayRole() throws Exception {
+        String user = registerAndLogin(uniqueName("gw"), "pwd");
+
+        withinBudget(() -> mockMvc.perform(post("/api/v1/auth/introspect")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"tokens\":[\"" + user + "\"]}"))
+                .andExpect(status().isUnauthorized()));
+        mockMvc.perform(post("/api/v1/auth/introspect")
+                        .header("Authorization", "Bearer " + user)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"tokens\":[\"" + user + "\"]}"))
+                .andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    void logout() throws Exception {
+        String token = registerAndLogin(uniqueName("logout"), "pwd");
+        long feedBefore = feedSize();
+
+        withinBudget(() -> mockMvc.perform(post("/api/v1/auth/logout")
+                        .header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent()));
+        // бюджет — чтение ролей для @CurrentUser; запись в ленту идёт через JDBC
+        // и статистикой Hibernate не считается, поэтому проверяется отдельно
+        assertEquals(1, feedSize() - feedBefore, "Отзыв — ровно одна запись в auth_changes");
+    }
+
+    private long feedSize() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM auth_changes", Long.class);
+    }
+
+    private String adminToken() throws Exception {
+        return mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(credentials("admin", "admin")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    void login_unknownUser() throws Exception {
+        withinBudget(() -> mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(credentials(uniqueName("ghost"), "pwd")))
+                .andExpect(status().isUnauthorized()));
+    }
+}
@@ -1,11 +1,22 @@
 package com.example.custom_protect;
 
+import com.example.custom_protect.audit.AuthAuditService;
+import com.example.custom_protect.changefeed.AuthChange;
+import com.example.custom_protect.changefeed.AuthChangeFeed;
+import com.example.custom_protect.datasource.ReadYourWritesGuard;
 import com.example.custom_protect.dto.LoginRequest;
 import com.example.custom_protect.exception.AuthenticationException;
+import com.example.custom_protect.exception.ServiceUnavailableException;
 import com.example.custom_protect.jwt.JwtUtils;
 import com.example.custom_protect.model.User;
+import com.example.custom_protect.model.en.AuthChangeType;
+import com.example.custom_protect.model.en.RoleType;
+import com.example.custom_protect.model.en.TokenType;
 import com.example.custom_protect.repository.UserRepository;
 import com.example.custom_protect.service.AuthService;
+import com.example.custom_protect.service.RevokedTokens;
+import com.example.custom_protect.service.RoleCache;
+import com.example.custom_protect.session.SessionStore;
 import com.example.custom_protect.utils.PasswordEncoder;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -13,13 +24,18 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockedStatic;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.*;
-import static org.mockito.ArgumentMatchers.anySet;
-import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -31,6 +47,24 @@ class AuthServiceTest {
     @Mock
     private UserRepository userRepository;
 
+    @Mock
+    private AuthAuditService auditService;
+
+    @Spy
+    private ReadYourWritesGuard readYourWrites = new ReadYourWritesGuard(0);
+
+    @Spy
+    private RoleCache roleCache = new RoleCache(0, 0);
+
+    @Spy
+    private RevokedTokens revokedTokens = new RevokedTokens(3600000);
+
+    @Mock
+    private AuthChangeFeed changeFeed;
+
+    @Spy
+    private SessionStore sessionStore = new SessionStore(16, 60000);
+
     @InjectMocks
     private AuthService authService;
 
@@ -42,6 +76,7 @@ class AuthServiceTest {
     @BeforeEach
     void setUp() {
         user = new User();
+        user.setId(7L);
         user.setName(username);
         user.setPassword(encodedPassword);
     }
@@ -68,6 +103,68 @@ class AuthServiceTest {
         }
     }
 
+    @Test
+    void authenticate_Opaque_PublishesSessionKeyNotToken() {
+        LoginRequest request = new LoginRequest(username, rawPassword, TokenType.OPAQUE);
+        when(userRepository.findByName(username)).thenReturn(Optional.of(user));
+        when(userRepository.findAuthoritiesByName(username)).thenReturn(List.of(RoleType.ROLE_USER));
+
+        try (MockedStatic<PasswordEncoder> pw = mockStatic(PasswordEncoder.class)) {
+            pw.when(() -> PasswordEncoder.matches(rawPassword, encodedPassword)).thenReturn(true);
+
+            String token = authService.authenticate(request).getBody();
+
+            assertThat(SessionStore.isOpaque(token)).isTrue();
+            verifyNoInteractions(jwtUtils);
+            verify(changeFeed).publish(argThat((List<AuthChange> changes) -> {
+                AuthChange change = changes.get(0);
+                return change.type() == AuthChangeType.SESSION_CREATED
+                        && change.userId() == 7L
+                        && change.tokenId().equals(SessionStore.keyOf(token))
+                        && !change.tokenId().equals(token)
+                        && SessionStore.roles(change.roleMask()).equals(Set.of(RoleType.ROLE_USER));
+            }));
+        }
+    }
+
+    @Test
+    void authenticate_Opaque_StoreFull_ThrowsServiceUnavailable() {
+        LoginRequest request = new LoginRequest(username, rawPassword, TokenType.OPAQUE);
+        when(userRepository.findByName(username)).thenReturn(Optional.of(user));
+        when(userRepository.findAuthoritiesByName(username)).thenReturn(List.of(RoleType.ROLE_USER));
+        doReturn(false).when(sessionStore).put(anyString(), anyLong(), anyString(), anyInt(), any());
+
+        try (MockedStatic<PasswordEncoder> pw = mockStatic(PasswordEncoder.class)) {
+            pw.when(() -> PasswordEncoder.matches(rawPassword, encodedPassword)).thenReturn(true);
+
+            assertThatThrownBy(() -> authService.authenticate(request))
+                    .isInstanceOf(ServiceUnavailableException.class);
+            verifyNoInteractions(changeFeed);
+        }
+    }
+
+    @Test
+    void verifySession_Unknown_ThrowsAuthenticationException() {
+        when(changeFeed.deliveryWindow()).thenReturn(Duration.ofSeconds(11));
+
+        assertThatThrownBy(() -> authService.verifySession(sessionStore.newToken()))
+                .isInstanceOf(AuthenticationException.class)
+                .hasMessage("Сессия не найдена или истекла.");
+        verify(changeFeed).findSession(anyString());
+    }
+
+    @Test
+    void verifySession_OutsideDeliveryWindow_SkipsDatabase() {
+        when(changeFeed.deliveryWindow()).thenReturn(Duration.ofSeconds(11));
+        byte[] handle = ByteBuffer.allocate(20).putInt((int) Instant.now().minusSeconds(60).getEpochSecond()).array();
+        String old = SessionStore.PREFIX + Base64.getUrlEncoder().withoutPadding().encodeToString(handle);
+
+        for (String token : List.of(old, SessionStore.PREFIX + "AAAA", SessionStore.PREFIX + "не-base64")) {
+            assertThatThrownBy(() -> authService.verifySession(token)).isInstanceOf(AuthenticationException.class);
+        }
+        verify(changeFeed, never()).findSession(anyString());
+    }
+
     @Test
     void authenticate_UserNotFound_ThrowsAuthenticationException() {
         LoginRequest request = new LoginRequest("unknown", "any");
@@ -99,85 +196,60 @@ class AuthServiceTest {
     }
 
     @Test
-    void validateToken_Valid_DoesNotThrow() {
-        String token = "valid.token";
-        when(jwtUtils.isTokenValid(token)).thenReturn(true);
+    void verifyToken_Valid_ReturnsClaims() {
+        String token = "valid.token.sig";
+        JwtUtils.TokenClaims claims = new JwtUtils.TokenClaims(username, 1L, Long.MAX_VALUE / 1000);
+        when(jwtUtils.verify(token)).thenReturn(Optional.of(claims));
 
-        assertThatCode(() -> authService.validateToken(token)).doesNotThrowAnyException();
+        assertThat(authService.verifyToken(token)).isEqualTo(claims);
 
-        verify(jwtUtils).isTokenValid(token);
+        verify(jwtUtils).verify(token);
+        verifyNoInteractions(userRepository);
     }
 
     @Test
-    void validateToken_Invalid_ThrowsAuthenticationException() {
+    void verifyToken_Invalid_ThrowsAuthenticationException() {
         String token = "invalid.token";
-        when(jwtUtils.isTokenValid(token)).thenReturn(false);
+        when(jwtUtils.verify(token)).thenReturn(Optional.empty());
 
-        assertThatThrownBy(() -> authService.validateToken(token))
+        assertThatThrownBy(() -> authService.verifyToken(token))
                 .isInstanceOf(AuthenticationException.class)
                 .hasMessage("Токен не валиден: протух или подпись некорректна.");
-
-        verify(jwtUtils).isTokenValid(token);
     }
 
     @Test
-    void hasAnyRole_MatchingRole_ReturnsTrue() {
-        String token = "token";
-        when(jwtUtils.extractUsername(token)).thenReturn(username);
-        when(userRepository.existsByNameAndRolesAuthorityIn(eq(username), anySet())).thenReturn(true);
-
-        boolean result = authService.hasAnyRole(token, new String[]{"ROLE_USER"});
+    void verifyToken_Revoked_ThrowsAuthenticationException() {
+        String token = "revoked.token.sig";
+        long exp = System.currentTimeMillis() / 1000 + 3600;
+        when(jwtUtils.verify(token)).thenReturn(Optional.of(new JwtUtils.TokenClaims(username, 1L, exp)));
+        revokedTokens.revokeToken(JwtUtils.tokenId(token), Instant.ofEpochSecond(exp));
 
-        assertThat(result).isTrue();
+        assertThatThrownBy(() -> authService.verifyToken(token))
+                .isInstanceOf(AuthenticationException.class)
+                .hasMessage("Токен отозван.");
+    }
 
-        verify(jwtUtils).extractUsername(token);
-        verify(userRepository).existsByNameAndRolesAuthorityIn(eq(username), anySet());
+    @Test
+    void hasAnyRole_MatchingRole_ReturnsTrue() {
+        assertThat(authService.hasAnyRole(Set.of(RoleType.ROLE_USER), new String[]{"ROLE_USER"})).isTrue();
+        assertThat(authService.hasAnyRole(Set.of(RoleType.ROLE_USER), new String[]{" role_admin ", "role_user"})).isTrue();
+        verifyNoInteractions(userRepository);
     }
 
     @Test
     void hasAnyRole_NoMatchingRole_ReturnsFalse() {
-        String token = "token";
-        when(jwtUtils.extractUsername(token)).thenReturn(username);
-        when(userRepository.existsByNameAndRolesAuthorityIn(eq(username), anySet())).thenReturn(false);
-
-        boolean result = authService.hasAnyRole(token, new String[]{"ROLE_ADMIN"});
-
-        assertThat(result).isFalse();
-
-        verify(jwtUtils).extractUsername(token);
-        verify(userRepository).existsByNameAndRolesAuthorityIn(eq(username), anySet());
+        assertThat(authService.hasAnyRole(Set.of(RoleType.ROLE_USER), new String[]{"ROLE_ADMIN"})).isFalse();
+        assertThat(authService.hasAnyRole(Set.of(), new String[]{"ROLE_USER"})).isFalse();
     }
 
     @Test
     void hasAnyRole_UnknownRoleString_ReturnsFalse() {
-        String token = "token";
-        when(jwtUtils.extractUsername(token)).thenReturn(username);
-
-        boolean result = authService.hasAnyRole(token, new String[]{"NOT_EXIST"});
-        assertThat(result).isFalse();
-
-        verify(jwtUtils).extractUsername(token);
-        verifyNoInteractions(userRepository);
+        assertThat(authService.hasAnyRole(Set.of(RoleType.ROLE_USER), new String[]{"NOT_EXIST"})).isFalse();
     }
 
     @Test
     void hasAnyRole_NullOrEmptyRequiredRoles_ReturnsFalse() {
-        String token = "token";
-        when(jwtUtils.extractUsername(token)).thenReturn(username);
-        assertThat(authService.hasAnyRole(token, null)).isFalse();
-        verify(jwtUtils, times(1)).extractUsername(token);
-        verifyNoInteractions(userRepository);
-    }
-
-    @Test
-    void hasAnyRole_NullUsername_ReturnsFalse() {
-        String token = "token";
-        when(jwtUtils.extractUsername(token)).thenReturn(null);
-
-        boolean result = authService.hasAnyRole(token, new String[]{"ROLE_USER"});
-
-        assertThat(result).isFalse();
-        verify(jwtUtils).extractUsername(token);
-        verifyNoInteractions(userRepository);
+        assertThat(authService.hasAnyRole(Set.of(RoleType.ROLE_USER), null)).isFalse();
+        assertThat(authService.hasAnyRole(Set.of(RoleType.ROLE_USER), new String[0])).isFalse();
     }
 }
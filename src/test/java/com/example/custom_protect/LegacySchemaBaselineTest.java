@@ -0,0 +1,62 @@
+package com.example.custom_protect;
+
+import com.example.custom_protect.migration.V1_1__NormalizeLegacySchema;
+import com.example.custom_protect.migration.V6__DropLegacyAuthorityCheck;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationVersion;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Схема, оставшаяся от Hibernate {@code ddl-auto}, с его именами ограничений: Flyway должен принять её
+ * за V1 и довести до текущей версии, как в prod-профиле.
+ */
+class LegacySchemaBaselineTest {
+
+    @Test
+    void hibernateCreatedSchemaIsBaselinedAndMigrated() {
+        DriverManagerDataSource dataSource =
+                new DriverManagerDataSource("jdbc:h2:mem:legacydb;DB_CLOSE_DELAY=-1", "sa", "");
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+        jdbc.execute("""
+                CREATE TABLE users (
+                    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    email VARCHAR(255) NOT NULL,
+                    name VARCHAR(255) NOT NULL,
+                    password VARCHAR(255) NOT NULL,
+                    CONSTRAINT UK6DOTKOTT2KJSP8VW4D0M25FB7 UNIQUE (email),
+                    CONSTRAINT UK3G1J96G94XPK3LPXL2QBL985X UNIQUE (name))""");
+        jdbc.execute("""
+                CREATE TABLE authorities (
+                    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+                    authority VARCHAR(255) NOT NULL CHECK (authority IN ('ROLE_USER', 'ROLE_ADMIN')),
+                    user_id BIGINT NOT NULL,
+                    CONSTRAINT FKK91UPMBUEYIM93V469WJ7B2QH FOREIGN KEY (user_id) REFERENCES users (id))""");
+        jdbc.update("INSERT INTO users (email, name, password) VALUES ('old@example.com', 'old', 'x')");
+        jdbc.update("INSERT INTO authorities (authority, user_id) VALUES ('ROLE_USER', 1), ('ROLE_USER', 1)");
+
+        Flyway flyway = Flyway.configure()
+                .dataSource(dataSource)
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .javaMigrations(new V1_1__NormalizeLegacySchema(), new V6__DropLegacyAuthorityCheck())
+                .load();
+        flyway.migrate();
+
+        assertEquals(MigrationVersion.fromVersion("7"), flyway.info().current().getVersion());
+        List<String> constraints = jdbc.queryForList(
+                "SELECT LOWER(constraint_name) FROM information_schema.table_constraints "
+                        + "WHERE LOWER(table_name) IN ('users', 'authorities') AND constraint_type <> 'CHECK'",
+                String.class);
+        assertTrue(constraints.containsAll(List.of(
+                "uk_users_name", "uk_users_email", "fk_authorities_user", "uk_authorities_user_authority")), constraints.toString());
+        assertEquals(1, jdbc.queryForObject("SELECT COUNT(*) FROM authorities", Integer.class),
+                "Дубликаты ролей схлопываются миграцией V3");
+        jdbc.update("INSERT INTO authorities (authority, user_id) VALUES ('ROLE_INTROSPECT', 1)"); // CHECK Hibernate снят
+    }
+}
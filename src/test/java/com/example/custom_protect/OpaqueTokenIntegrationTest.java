@@ -0,0 +1,176 @@
+package com.example.custom_protect;
+
+import com.example.custom_protect.dto.RegisterRequest;
+import com.example.custom_protect.model.en.RoleType;
+import com.example.custom_protect.repository.RoleAdminRepository;
+import com.example.custom_protect.repository.UserSelector;
+import com.example.custom_protect.service.AuthService;
+import com.example.custom_protect.service.UserService;
+import com.example.custom_protect.session.SessionStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+class OpaqueTokenIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private SessionStore sessionStore;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private RoleAdminRepository roleAdminRepository;
+
+    private String name;
+
+    @BeforeEach
+    void setUp() {
+        name = "opaque" + UUID.randomUUID().toString().substring(0, 8);
+        userService.registerUser(new RegisterRequest(name, "secret", name + "@example.com"));
+    }
+
+    @Test
+    void opaqueTokenAuthorizesWithRolesFromSession() throws Exception {
+        String token = login(name, "OPAQUE");
+        assertTrue(token.startsWith(SessionStore.PREFIX));
+
+        call("/api/v1/test/secure", token).andExpect(status().isOk());
+        call("/api/v1/test/admin", token).andExpect(status().isUnauthorized());
+        call("/api/v1/test/me", token)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value(name))
+                .andExpect(jsonPath("$.roles[0]").value("ROLE_USER"))
+                .andExpect(jsonPath("$.tokenId").value(SessionStore.keyOf(token)));
+
+        String admin = login("admin", "OPAQUE");
+        call("/api/v1/test/admin", admin).andExpect(status().isOk());
+    }
+
+    @Test
+    void jwtAndUnknownTokenTypeStillWork() throws Exception {
+        String jwt = login(name, null);
+        assertFalse(SessionStore.isOpaque(jwt));
+        call("/api/v1/test/secure", jwt).andExpect(status().isOk());
+
+        call("/api/v1/test/secure", sessionStore.newToken()).andExpect(status().isUnauthorized());
+        call("/api/v1/test/secure", SessionStore.PREFIX + "не-base64").andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void logoutRemovesSession() throws Exception {
+        String token = login(name, "OPAQUE");
+        String other = login(name, "OPAQUE");
+
+        mockMvc.perform(post("/api/v1/auth/logout").header("Authorization", "Bearer " + token))
+                .andExpect(status().isNoContent());
+
+        call("/api/v1/test/secure", token).andExpect(status().isUnauthorized());
+        call("/api/v1/test/secure", other).andExpect(status().isOk());
+    }
+
+    @Test
+    void roleChangeDropsUserSessions() throws Exception {
+        String token = login(name, "OPAQUE");
+        String admin = login("admin", null);
+
+        mockMvc.perform(post("/api/v1/admin/roles/grant")
+                        .header("Authorization", "Bearer " + admin)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"role\":\"ROLE_ADMIN\",\"names\":[\"%s\"]}".formatted(name)))
+                .andExpect(jsonPath("$.affected").value(1));
+
+        call("/api/v1/test/secure", token).andExpect(status().isUnauthorized());
+        call("/api/v1/test/admin", login(name, "OPAQUE")).andExpect(status().isOk());
+    }
+
+    @Test
+    void sessionNotYetDeliveredIsFoundInPrimary() throws Exception {
+        String token = login(name, "OPAQUE");
+        sessionStore.remove(SessionStore.keyOf(token)); // как на узле, ещё не прочитавшем ленту
+        call("/api/v1/test/me", token)
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value(name));
+        mockMvc.perform(post("/api/v1/auth/introspect")
+                        .header("Authorization", "Bearer " + login("admin", null))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"tokens\":[\"%s\"]}".formatted(token)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].active").value(true))
+                .andExpect(jsonPath("$[0].sub").value(name));
+
+        String revoked = login(name, "OPAQUE");
+        mockMvc.perform(post("/api/v1/auth/logout").header("Authorization", "Bearer " + revoked))
+                .andExpect(status().isNoContent());
+        call("/api/v1/test/secure", revoked).andExpect(status().isUnauthorized());
+
+        String beforeRoleChange = login(name, "OPAQUE");
+        sessionStore.remove(SessionStore.keyOf(beforeRoleChange));
+        mockMvc.perform(post("/api/v1/admin/roles/grant")
+                        .header("Authorization", "Bearer " + login("admin", null))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"role\":\"ROLE_ADMIN\",\"names\":[\"%s\"]}".formatted(name)))
+                .andExpect(jsonPath("$.affected").value(1));
+        call("/api/v1/test/secure", beforeRoleChange).andExpect(status().isUnauthorized());
+    }
+
+    @Test
+    void sessionRolesBypassStaleCache() throws Exception {
+        authService.loadRoles(name); // кэш узла помнит ROLE_USER
+        // изменение в БД без ленты — как на другом узле до следующего опроса
+        roleAdminRepository.grant(RoleType.ROLE_ADMIN, UserSelector.byNames(List.of(name)));
+        assertEquals(Set.of(RoleType.ROLE_USER), authService.loadRoles(name));
+
+        call("/api/v1/test/admin", login(name, "OPAQUE")).andExpect(status().isOk());
+    }
+
+    @Test
+    void introspectionResolvesOpaqueTokens() throws Exception {
+        String token = login(name, "OPAQUE");
+
+        mockMvc.perform(post("/api/v1/auth/introspect")
+                        .header("Authorization", "Bearer " + login("admin", null))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"tokens\":[\"%s\",\"%s\"]}".formatted(token, sessionStore.newToken())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].active").value(true))
+                .andExpect(jsonPath("$[0].sub").value(name))
+                .andExpect(jsonPath("$[0].roles[0]").value("ROLE_USER"))
+                .andExpect(jsonPath("$[1].active").value(false));
+    }
+
+    private String login(String user, String tokenType) throws Exception {
+        String type = tokenType == null ? "" : ",\"tokenType\":\"%s\"".formatted(tokenType);
+        String password = user.equals("admin") ? "admin" : "secret";
+        return mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"%s\",\"password\":\"%s\"%s}".formatted(user, password, type)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private ResultActions call(String path, String token) throws Exception {
+        return mockMvc.perform(get(path).header("Authorization", "Bearer " + token));
+    }
+}
@@ -0,0 +1,23 @@
+package com.example.custom_protect;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Максимум обращений к БД за один запрос к эндпоинту, см. {@link AbstractQueryBudgetTest#withinBudget}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface QueryBudget {
+
+    /** SQL-выражения, подготовленные Hibernate. */
+    long statements();
+
+    /** Сущности, загруженные из БД. */
+    long entityLoads() default 0;
+
+    /** Ленивые коллекции, дочитанные из БД. */
+    long collectionFetches() default 0;
+}
@@ -0,0 +1,90 @@
+package com.example.custom_protect;
+
+import com.example.custom_protect.model.en.RoleType;
+import com.example.custom_protect.repository.UserRepository;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Снимает план выполнения SQL, который Hibernate генерирует для горячих запросов репозитория,
+ * и падает, если H2 выбирает полный просмотр таблицы вместо индекса из миграций.
+ */
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.example.custom_protect.QueryPlanTest$SqlCapture"
+})
+class QueryPlanTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void findByName_usesIndex() {
+        assertNoFullScan(() -> userRepository.findByName("admin"));
+    }
+
+    @Test
+    void findByEmail_usesIndex() {
+        assertNoFullScan(() -> userRepository.findByEmail("admin@email"));
+    }
+
+    @Test
+    void existsByName_usesIndex() {
+        assertNoFullScan(() -> userRepository.existsByName("admin"));
+    }
+
+    @Test
+    void existsByEmail_usesIndex() {
+        assertNoFullScan(() -> userRepository.existsByEmail("admin@email"));
+    }
+
+    @Test
+    void existsByNameAndRolesAuthorityIn_usesIndex() {
+        assertNoFullScan(() -> userRepository.existsByNameAndRolesAuthorityIn("admin", Set.of(RoleType.ROLE_ADMIN)));
+    }
+
+    @Test
+    void findAuthoritiesByName_usesIndex() {
+        assertNoFullScan(() -> userRepository.findAuthoritiesByName("admin"));
+    }
+
+    @Test
+    void findRolesByNameIn_usesIndex() {
+        assertNoFullScan(() -> userRepository.findRolesByNameIn(List.of("admin", "ivan")));
+    }
+
+    private void assertNoFullScan(Runnable query) {
+        SqlCapture.STATEMENTS.clear();
+        query.run();
+        List<String> statements = List.copyOf(SqlCapture.STATEMENTS);
+        assertFalse(statements.isEmpty(), "Запрос не выполнил ни одного SQL");
+
+        for (String sql : statements) {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+            assertNotNull(plan);
+            assertFalse(plan.contains(".tableScan"), () -> "Полный просмотр таблицы:\n" + plan);
+        }
+    }
+
+    public static class SqlCapture implements StatementInspector {
+
+        static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        @Override
+        public String inspect(String sql) {
+            STATEMENTS.add(sql);
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.example.custom_protect;
+
+import com.example.custom_protect.dto.LoginRequest;
+import com.example.custom_protect.dto.RegisterRequest;
+import com.example.custom_protect.model.en.TokenType;
+import io.r2dbc.pool.ConnectionPool;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Тот же API, поднятый на WebFlux: логин и проверка ролей идут через R2DBC по той же H2.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.datasource.url=jdbc:h2:mem:reactivedb;DB_CLOSE_DELAY=-1;DB_CLOSE_ON_EXIT=false",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.show-sql=false",
+        "reactive.r2dbc.url=r2dbc:h2:mem:///reactivedb;DB_CLOSE_DELAY=-1",
+        "reactive.r2dbc.password=",
+        "warmup.iterations=10"
+})
+class ReactiveAuthIntegrationTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @Test
+    void runsOnNettyDespiteServletStarterOnClasspath() {
+        assertInstanceOf(NettyWebServer.class, ((WebServerApplicationContext) context).getWebServer());
+    }
+
+    @Test
+    void r2dbcConnectionsArePooled() {
+        assertInstanceOf(ConnectionPool.class, databaseClient.getConnectionFactory());
+    }
+
+    private String login(String name, String password) {
+        String token = webTestClient.post().uri("/api/v1/auth/login")
+                .bodyValue(new LoginRequest(name, password))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult().getResponseBody();
+        assertNotNull(token);
+        return token;
+    }
+
+    private String registerAndLogin() {
+        String name = "reactive_" + UUID.randomUUID().toString().substring(0, 8);
+        webTestClient.post().uri("/api/v1/auth/register")
+                .bodyValue(new RegisterRequest(name, "secret", name + "@example.com"))
+                .exchange()
+                .expectStatus().is2xxSuccessful();
+        return login(name, "secret");
+    }
+
+    @Test
+    void opaqueTokenTypeIsRejected() {
+        webTestClient.post().uri("/api/v1/auth/login")
+                .bodyValue(new LoginRequest("admin", "admin", TokenType.OPAQUE))
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void publicEndpointIsOpen() {
+        webTestClient.get().uri("/api/v1/test/public")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).isEqualTo("This is public");
+    }
+
+    @Test
+    void secureEndpointWithoutTokenIsRejected() {
+        webTestClient.get().uri("/api/v1/test/secure")
+                .exchange()
+                .expectStatus().isUnauthorized()
+                .expectBody().jsonPath("$.status").isEqualTo(401);
+    }
+
+    @Test
+    void wrongPasswordIsRejected() {
+        webTestClient.post().uri("/api/v1/auth/login")
+                .bodyValue(new LoginRequest("admin", "wrong"))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void userTokenOpensSecureButNotAdmin() {
+        String token = registerAndLogin();
+
+        webTestClient.get().uri("/api/v1/test/secure")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/api/v1/test/admin")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    void adminTokenOpensAdminAndResolvesCurrentUser() {
+        String token = login("admin", "admin");
+
+        webTestClient.get().uri("/api/v1/test/admin")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk();
+        webTestClient.get().uri("/api/v1/test/me")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.name").isEqualTo("admin")
+                .jsonPath("$.roles[0]").isEqualTo("ROLE_ADMIN");
+    }
+}
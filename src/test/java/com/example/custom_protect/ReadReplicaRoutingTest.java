@@ -0,0 +1,160 @@
+package com.example.custom_protect;
+
+import com.example.custom_protect.datasource.ReadYourWritesGuard;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.boot.autoconfigure.flyway.FlywayMigrationStrategy;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Две независимые H2 в памяти изображают основную БД и реплику.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+@TestPropertySource(properties = {
+        "routing.datasource.enabled=true",
+        "routing.datasource.read-your-writes-ms=60000",
+        "routing.datasource.primary.jdbc-url=jdbc:h2:mem:primarydb;DB_CLOSE_DELAY=-1",
+        "routing.datasource.primary.username=sa",
+        "routing.datasource.replica.jdbc-url=jdbc:h2:mem:replicadb;DB_CLOSE_DELAY=-1",
+        "routing.datasource.replica.username=sa",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.show-sql=false",
+        "warmup.iterations=10"
+})
+class ReadReplicaRoutingTest {
+
+    private static final String CURRENT_DB = "SELECT DATABASE()";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReadYourWritesGuard readYourWrites;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void readOnlyTransaction_goesToReplica() {
+        assertEquals("REPLICADB", currentDatabase(true));
+    }
+
+    @Test
+    void readWriteTransaction_goesToPrimary() {
+        assertEquals("PRIMARYDB", currentDatabase(false));
+    }
+
+    @Test
+    void recentWrite_pinsReadsToPrimary() {
+        readYourWrites.markWritten("fresh");
+
+        assertEquals("PRIMARYDB", readYourWrites.read("fresh", () -> currentDatabase(true)));
+        assertEquals("REPLICADB", readYourWrites.read("stale", () -> currentDatabase(true)));
+    }
+
+    /**
+     * Регистрация на этом узле, вход — на втором узле с теми же БД: его локальный guard о записи
+     * не знает, и без cookie-маркера вход читает реплику, где пользователя ещё нет.
+     */
+    @Test
+    void registerOnOneNode_loginOnAnotherWithMarker_readsPrimary() throws Exception {
+        String name = "rywt" + UUID.randomUUID().toString().substring(0, 8);
+        String cookie = mockMvc.perform(post("/api/v1/auth/register")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"name\":\"%s\",\"password\":\"secret\",\"email\":\"%s@example.com\"}"
+                                .formatted(name, name)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.SET_COOKIE);
+        assertNotNull(cookie);
+        assertTrue(cookie.startsWith(ReadYourWritesGuard.COOKIE + "="));
+
+        try (ConfigurableApplicationContext nodeB = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.SERVLET)
+                .profiles("test")
+                .properties(
+                        "server.port=0",
+                        "routing.datasource.enabled=true",
+                        "routing.datasource.read-your-writes-ms=60000",
+                        "routing.datasource.primary.jdbc-url=jdbc:h2:mem:primarydb;DB_CLOSE_DELAY=-1",
+                        "routing.datasource.primary.username=sa",
+                        "routing.datasource.replica.jdbc-url=jdbc:h2:mem:replicadb;DB_CLOSE_DELAY=-1",
+                        "routing.datasource.replica.username=sa",
+                        "spring.jpa.hibernate.ddl-auto=validate",
+                        "warmup.enabled=false")
+                .run()) {
+            int port = ((WebServerApplicationContext) nodeB).getWebServer().getPort();
+            String body = "{\"name\":\"%s\",\"password\":\"secret\"}".formatted(name);
+
+            assertEquals(401, login(port, body, null), "Без маркера вход читает отстающую реплику");
+            assertEquals(200, login(port, body, cookie.substring(0, cookie.indexOf(';'))));
+        }
+    }
+
+    private static int login(int port, String body, String cookie) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/api/v1/auth/login"))
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .POST(HttpRequest.BodyPublishers.ofString(body));
+        if (cookie != null) {
+            request.header(HttpHeaders.COOKIE, cookie);
+        }
+        return HttpClient.newHttpClient().send(request.build(), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    /**
+     * Репликации между двумя H2 нет, поэтому схему на «реплику» накатываем теми же миграциями.
+     */
+    @TestConfiguration
+    static class ReplicaSchema {
+
+        @Bean
+        FlywayMigrationStrategy migratePrimaryAndReplica(@Qualifier("replicaDataSource") DataSource replica) {
+            return flyway -> {
+                flyway.migrate();
+                Flyway.configure()
+                        .configuration(flyway.getConfiguration())
+                        .dataSource(replica)
+                        .load()
+                        .migrate();
+            };
+        }
+    }
+
+    private String currentDatabase(boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(readOnly);
+        return tx.execute(status -> jdbcTemplate.queryForObject(CURRENT_DB, String.class));
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.custom_protect;
+
+import com.example.custom_protect.dto.RegisterRequest;
+import com.example.custom_protect.dto.RoleChangeRequest;
+import com.example.custom_protect.dto.RoleChangeResult;
+import com.example.custom_protect.model.en.RoleType;
+import com.example.custom_protect.repository.UserRepository;
+import com.example.custom_protect.service.AuthService;
+import com.example.custom_protect.service.RoleAdminService;
+import com.example.custom_protect.service.RoleCache;
+import com.example.custom_protect.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+class RoleAdminIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private RoleCache roleCache;
+
+    @Autowired
+    private RoleAdminService roleAdminService;
+
+    private String adminToken;
+    private String prefix;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        adminToken = login("admin", "admin");
+        prefix = "bulk" + UUID.randomUUID().toString().substring(0, 6) + "_";
+    }
+
+    @Test
+    void grantByNamesIsIdempotentAndVisibleImmediately() throws Exception {
+        String first = register(prefix + "a");
+        String second = register(prefix + "b");
+        assertEquals(Set.of(RoleType.ROLE_USER), authService.loadRoles(first)); // роли попали в кэш
+
+        change("grant", "{\"role\":\"ROLE_ADMIN\",\"names\":[\"%s\",\"%s\",\"%s\"]}".formatted(first, second, prefix + "missing"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.role").value("ROLE_ADMIN"))
+                .andExpect(jsonPath("$.affected").value(2));
+
+        assertEquals(Set.of(RoleType.ROLE_USER, RoleType.ROLE_ADMIN), authService.loadRoles(first));
+        mockMvc.perform(get("/api/v1/test/admin").header("Authorization", "Bearer " + login(second, "secret")))
+                .andExpect(status().isOk());
+
+        change("grant", "{\"role\":\"ROLE_ADMIN\",\"names\":[\"%s\",\"%s\"]}".formatted(first, second))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.affected").value(0));
+        assertEquals(2, userRepository.findAuthoritiesByName(first).size());
+    }
+
+    @Test
+    void filterSelectsOnlyMatchingUsersAndRevokeIsIdempotent() throws Exception {
+        String first = register(prefix + "a");
+        String second = register(prefix + "b");
+        String outsider = register("other" + prefix);
+
+        change("grant", "{\"role\":\"ROLE_ADMIN\",\"filter\":{\"namePrefix\":\"%s\"}}".formatted(prefix))
+                .andExpect(jsonPath("$.affected").value(2));
+        assertFalse(authService.loadRoles(outsider).contains(RoleType.ROLE_ADMIN));
+
+        change("revoke", "{\"role\":\"ROLE_ADMIN\",\"filter\":{\"namePrefix\":\"%s\",\"emailDomain\":\"@example.com\"}}".formatted(prefix))
+                .andExpect(jsonPath("$.affected").value(2));
+        change("revoke", "{\"role\":\"ROLE_ADMIN\",\"filter\":{\"namePrefix\":\"%s\"}}".formatted(prefix))
+                .andExpect(jsonPath("$.affected").value(0));
+        assertEquals(Set.of(RoleType.ROLE_USER), authService.loadRoles(first));
+        assertEquals(Set.of(RoleType.ROLE_USER), authService.loadRoles(second));
+    }
+
+    @Test
+    void onlyAffectedUsersAreEvictedFromCache() throws Exception {
+        String affected = register(prefix + "a");
+        String untouched = register(prefix + "b");
+        authService.loadRoles(affected);
+        authService.loadRoles(untouched);
+
+        change("grant", "{\"role\":\"ROLE_ADMIN\",\"names\":[\"%s\"]}".formatted(affected))
+                .andExpect(jsonPath("$.affected").value(1));
+
+        AtomicInteger loads = new AtomicInteger();
+        roleCache.get(untouched, name -> { loads.incrementAndGet(); return Set.of(); });
+        assertEquals(0, loads.get(), "Запись незатронутого пользователя не должна сбрасываться");
+        roleCache.get(affected, name -> { loads.incrementAndGet(); return Set.of(); });
+        assertEquals(1, loads.get(), "Запись изменённого пользователя должна быть сброшена");
+    }
+
+    @Test
+    void concurrentGrantsChangeEachUserExactlyOnce() throws Exception {
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            names.add(register(prefix + i));
+        }
+        RoleChangeRequest request = new RoleChangeRequest(RoleType.ROLE_ADMIN, names, null);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<RoleChangeResult>> results = new ArrayList<>();
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return roleAdminService.grant(request, "admin");
+                }));
+            }
+            start.countDown();
+
+            int affected = 0;
+            for (Future<RoleChangeResult> result : results) {
+                affected += result.get(30, TimeUnit.SECONDS).affected();
+            }
+            assertEquals(names.size(), affected, "Каждый пользователь должен попасть ровно в один ответ");
+        } finally {
+            executor.shutdownNow();
+        }
+        for (String name : names) {
+            assertEquals(Set.of(RoleType.ROLE_USER, RoleType.ROLE_ADMIN), Set.copyOf(userRepository.findAuthoritiesByName(name)));
+        }
+    }
+
+    @Test
+    void likeWildcardsInFilterAreLiteral() throws Exception {
+        register(prefix + "a");
+
+        change("grant", "{\"role\":\"ROLE_ADMIN\",\"filter\":{\"namePrefix\":\"%%\"}}")
+                .andExpect(jsonPath("$.affected").value(0));
+    }
+
+    @Test
+    void invalidRequestsAreRejected() throws Exception {
+        change("grant", "{\"role\":\"ROLE_ADMIN\"}").andExpect(status().isBadRequest());
+        change("grant", "{\"role\":\"ROLE_ADMIN\",\"filter\":{}}").andExpect(status().isBadRequest());
+        change("grant", "{\"role\":\"ROLE_ADMIN\",\"names\":[\"x\"],\"filter\":{\"namePrefix\":\"x\"}}")
+                .andExpect(status().isBadRequest());
+        change("grant", "{\"names\":[\"x\"]}").andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void nonAdminIsForbidden() throws Exception {
+        String user = register(prefix + "a");
+
+        mockMvc.perform(post("/api/v1/admin/roles/grant")
+                        .header("Authorization", "Bearer " + login(user, "secret"))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"role\":\"ROLE_ADMIN\",\"names\":[\"%s\"]}".formatted(user)))
+                .andExpect(status().isUnauthorized());
+        assertEquals(List.of(RoleType.ROLE_USER), userRepository.findAuthoritiesByName(user));
+    }
+
+    private ResultActions change(String action, String body) throws Exception {
+        return mockMvc.perform(post("/api/v1/admin/roles/" + action)
+                .header("Authorization", "Bearer " + adminToken)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(body));
+    }
+
+    private String register(String name) {
+        userService.registerUser(new RegisterRequest(name, "secret", name + "@example.com"));
+        return name;
+    }
+
+    private String login(String name, String password) throws Exception {
+        return mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(String.format("{\"name\":\"%s\",\"password\":\"%s\"}", name, password)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.custom_protect;
+
+import com.example.custom_protect.repository.UserRepository;
+import com.example.custom_protect.service.UserService;
+import com.example.custom_protect.warmup.StartupWarmUp;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+@Import(StartupWarmUpIntegrationTest.ReadinessRecorder.class)
+class StartupWarmUpIntegrationTest extends AbstractIntegrationTest {
+
+    @Autowired
+    private StartupWarmUp warmUp;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private ApplicationAvailability availability;
+
+    @Autowired
+    private ReadinessRecorder recorder;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void adminIsSeededOnceAndReseedingIsNoOp() {
+        assertTrue(userRepository.existsByName("admin"));
+        assertFalse(userService.seedAdmin(), "Повторный посев не должен создавать администратора");
+        assertFalse(userService.seedAdmin());
+    }
+
+    @Test
+    void readinessIsReportedOnlyAfterWarmUp() {
+        assertTrue(warmUp.warmUpMillis() >= 0, "Прогрев должен завершиться до старта тестов");
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, availability.getReadinessState());
+
+        List<ReadinessState> states = recorder.states;
+        assertEquals(ReadinessState.REFUSING_TRAFFIC, states.get(0));
+        assertEquals(ReadinessState.ACCEPTING_TRAFFIC, states.get(states.size() - 1));
+        assertTrue(recorder.warmUpDoneWhenAccepting, "ACCEPTING_TRAFFIC пришёл раньше окончания прогрева");
+    }
+
+    @Test
+    void readinessProbeIsUp() throws Exception {
+        mockMvc.perform(get("/actuator/health/readiness"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status").value("UP"));
+    }
+
+    @TestConfiguration
+    static class ReadinessRecorder implements ApplicationListener<AvailabilityChangeEvent<ReadinessState>> {
+
+        final List<ReadinessState> states = new CopyOnWriteArrayList<>();
+        volatile boolean warmUpDoneWhenAccepting;
+
+        @Autowired
+        private StartupWarmUp warmUp;
+
+        @Override
+        public void onApplicationEvent(AvailabilityChangeEvent<ReadinessState> event) {
+            states.add(event.getState());
+            if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+                warmUpDoneWhenAccepting = warmUp.warmUpMillis() >= 0;
+            }
+        }
+    }
+}
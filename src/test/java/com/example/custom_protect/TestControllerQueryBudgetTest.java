@@ -0,0 +1,85 @@
+package com.example.custom_protect;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class TestControllerQueryBudgetTest extends AbstractQueryBudgetTest {
+
+    private String userToken;
+    private String adminToken;
+
+    @BeforeEach
+    void tokens() throws Exception {
+        userToken = registerAndLogin(uniqueName("user"), "pwd");
+        adminToken = mockMvc.perform(post("/api/v1/auth/login")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(credentials("admin", "admin")))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    @Test
+    @QueryBudget(statements = 0)
+    void publicEndpoint() throws Exception {
+        withinBudget(() -> mockMvc.perform(get("/api/v1/test/public"))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    @QueryBudget(statements = 0)
+    void secureEndpoint() throws Exception {
+        withinBudget(() -> mockMvc.perform(get("/api/v1/test/secure")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    void adminEndpoint() throws Exception {
+        withinBudget(() -> mockMvc.perform(get("/api/v1/test/admin")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    void adminEndpoint_forbiddenForUser() throws Exception {
+        withinBudget(() -> mockMvc.perform(get("/api/v1/test/admin")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isUnauthorized()));
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    void authenticatedEndpoint() throws Exception {
+        withinBudget(() -> mockMvc.perform(get("/api/v1/test/authenticated")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    @QueryBudget(statements = 1)
+    void meEndpoint_principalReusesRoleCheck() throws Exception {
+        withinBudget(() -> mockMvc.perform(get("/api/v1/test/me")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("admin"))
+                .andExpect(jsonPath("$.roles[0]").value("ROLE_ADMIN"))
+                .andExpect(jsonPath("$.tokenId").value(adminToken.substring(adminToken.lastIndexOf('.') + 1)))
+                .andExpect(jsonPath("$.expiresAt").isNotEmpty()));
+    }
+
+    @Test
+    @QueryBudget(statements = 0)
+    void secureEndpoint_invalidToken() throws Exception {
+        withinBudget(() -> mockMvc.perform(get("/api/v1/test/secure")
+                        .header("Authorization", "Bearer not.a.token"))
+                .andExpect(status().isUnauthorized()));
+    }
+}
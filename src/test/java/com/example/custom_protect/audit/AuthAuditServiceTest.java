@@ -0,0 +1,61 @@
+package com.example.custom_protect.audit;
+
+import com.example.custom_protect.model.AuthEvent;
+import com.example.custom_protect.model.en.AuthEventType;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+
+class AuthAuditServiceTest {
+
+    @Test
+    void blockPolicyWaitsForWriterToFreeSpace() throws Exception {
+        AuthAuditService audit = new AuthAuditService(2, OverflowPolicy.BLOCK, 10_000);
+        audit.publish(AuthEventType.ACCESS_DENIED, "a", null);
+        audit.publish(AuthEventType.ACCESS_DENIED, "b", null);
+
+        CompletableFuture<Void> blocked = CompletableFuture.runAsync(
+                () -> audit.publish(AuthEventType.ACCESS_DENIED, "c", null));
+        Thread.sleep(100);
+        assertThat(blocked).isNotDone();
+
+        List<AuthEvent> drained = new ArrayList<>();
+        audit.drainTo(drained, 1);
+        blocked.get(5, TimeUnit.SECONDS);
+
+        audit.drainTo(drained, 10);
+        assertThat(drained).extracting(AuthEvent::getName).containsExactly("a", "b", "c");
+        assertThat(audit.droppedCount()).isZero();
+    }
+
+    @Test
+    void blockPolicyDropsAfterTimeout() {
+        AuthAuditService audit = new AuthAuditService(2, OverflowPolicy.BLOCK, 50);
+        audit.publish(AuthEventType.ACCESS_DENIED, "a", null);
+        audit.publish(AuthEventType.ACCESS_DENIED, "b", null);
+
+        long start = System.nanoTime();
+        audit.publish(AuthEventType.ACCESS_DENIED, "c", null);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isGreaterThanOrEqualTo(50);
+        assertThat(audit.droppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void nonBlockingPublishIgnoresBlockPolicy() {
+        AuthAuditService audit = new AuthAuditService(2, OverflowPolicy.BLOCK, 10_000);
+        audit.publish(AuthEventType.ACCESS_DENIED, "a", null);
+        audit.publish(AuthEventType.ACCESS_DENIED, "b", null);
+
+        long start = System.nanoTime();
+        audit.publishNonBlocking(AuthEventType.ACCESS_DENIED, "c", null);
+
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(1_000);
+        assertThat(audit.droppedCount()).isEqualTo(1);
+    }
+}
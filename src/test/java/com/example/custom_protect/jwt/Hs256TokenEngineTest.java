@@ -0,0 +1,94 @@
+package com.example.custom_protect.jwt;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SignatureException;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.*;
+
+class Hs256TokenEngineTest {
+
+    private static final SecretKey KEY =
+            Keys.hmacShaKeyFor("your-very-secure-secret-key-here-32-characters-minimum".getBytes(StandardCharsets.UTF_8));
+    private static final long NOW = 1_700_000_000_123L;
+    private static final long EXPIRES = NOW + 3_600_000L;
+
+    private final Hs256TokenEngine engine = new Hs256TokenEngine(KEY.getEncoded());
+
+    @ParameterizedTest
+    @ValueSource(strings = {"roma", "admin", "", "   ", "Роман", "quo\"te\\slash/", "tab\tnew\nline\u0001\u001f", "emoji 😀"})
+    void create_isByteIdenticalToJjwt(String subject) {
+        String expected = Jwts.builder()
+                .setSubject(subject)
+                .setIssuedAt(new Date(NOW))
+                .setExpiration(new Date(EXPIRES))
+                .signWith(KEY, SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThat(engine.create(subject, NOW, EXPIRES)).isEqualTo(expected);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"roma", "Роман", "quo\"te\\slash/", "tab\tnew\nline\u0001\u001f", "emoji 😀"})
+    void verify_readsJjwtTokens(String subject) {
+        String token = Jwts.builder()
+                .setSubject(subject)
+                .setIssuedAt(new Date(NOW))
+                .setExpiration(new Date(EXPIRES))
+                .signWith(KEY, SignatureAlgorithm.HS256)
+                .compact();
+
+        Hs256TokenEngine.VerifiedToken verified = engine.verify(token).orElseThrow();
+
+        assertThat(verified.subject()).isEqualTo(subject);
+        assertThat(verified.issuedAtSeconds()).isEqualTo(NOW / 1000);
+        assertThat(verified.expiresAtSeconds()).isEqualTo(EXPIRES / 1000);
+    }
+
+    @Test
+    void verify_tokensAcceptedByJjwt() {
+        String token = engine.create("roma", System.currentTimeMillis(), System.currentTimeMillis() + 60_000);
+
+        Claims claims = Jwts.parserBuilder().setSigningKey(KEY).build().parseClaimsJws(token).getBody();
+
+        assertThat(claims.getSubject()).isEqualTo("roma");
+    }
+
+    @Test
+    void verify_tamperedSignature_throws() {
+        String token = engine.create("roma", NOW, EXPIRES);
+        char last = token.charAt(token.length() - 2);
+        String tampered = token.substring(0, token.length() - 2) + (last == 'A' ? 'B' : 'A') + token.charAt(token.length() - 1);
+
+        assertThatThrownBy(() -> engine.verify(tampered)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void verify_tamperedPayload_throws() {
+        String token = engine.create("roma", NOW, EXPIRES);
+        String forged = engine.create("admin", NOW, EXPIRES);
+        String mixed = forged.substring(0, forged.lastIndexOf('.')) + token.substring(token.lastIndexOf('.'));
+
+        assertThatThrownBy(() -> engine.verify(mixed)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void verify_otherShape_fallsBack() {
+        String token = Jwts.builder()
+                .setSubject("roma")
+                .claim("role", "ROLE_ADMIN")
+                .signWith(KEY, SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThat(engine.verify(token)).isEmpty();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.custom_protect.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+
+/**
+ * Сравнение пропускной способности jjwt и {@link Hs256TokenEngine} на выпуске и проверке токена.
+ * Запуск: {@code ./mvnw -Ploadtest test-compile exec:java -Dexec.mainClass=com.example.custom_protect.jwt.JwtEngineBenchmark}.
+ */
+public final class JwtEngineBenchmark {
+
+    private static final SecretKey KEY =
+            Keys.hmacShaKeyFor("your-very-secure-secret-key-here-32-characters-minimum".getBytes(StandardCharsets.UTF_8));
+    private static final long EXPIRATION = 3_600_000L;
+    private static final int SUBJECTS = 1024;
+
+    private static volatile Object sink;
+
+    public static void main(String[] args) {
+        int seconds = Integer.getInteger("bench.seconds", 3);
+        Hs256TokenEngine engine = new Hs256TokenEngine(KEY.getEncoded());
+        String[] subjects = new String[SUBJECTS];
+        String[] tokens = new String[SUBJECTS];
+        for (int i = 0; i < SUBJECTS; i++) {
+            subjects[i] = "user_" + i;
+            tokens[i] = engine.create(subjects[i], System.currentTimeMillis(), System.currentTimeMillis() + EXPIRATION);
+        }
+
+        IntConsumer jjwtCreate = i -> {
+            long now = System.currentTimeMillis();
+            sink = Jwts.builder()
+                    .setSubject(subjects[i & (SUBJECTS - 1)])
+                    .setIssuedAt(new Date(now))
+                    .setExpiration(new Date(now + EXPIRATION))
+                    .signWith(KEY, SignatureAlgorithm.HS256)
+                    .compact();
+        };
+        IntConsumer fastCreate = i -> {
+            long now = System.currentTimeMillis();
+            sink = engine.create(subjects[i & (SUBJECTS - 1)], now, now + EXPIRATION);
+        };
+        IntConsumer jjwtVerify = i -> sink = Jwts.parserBuilder().setSigningKey(KEY).build()
+                .parseClaimsJws(tokens[i & (SUBJECTS - 1)]).getBody().getSubject();
+        IntConsumer fastVerify = i -> sink = engine.verify(tokens[i & (SUBJECTS - 1)]).orElseThrow().subject();
+
+        double jjwtCreateOps = measure("jjwt   create", jjwtCreate, seconds);
+        double fastCreateOps = measure("engine create", fastCreate, seconds);
+        double jjwtVerifyOps = measure("jjwt   verify", jjwtVerify, seconds);
+        double fastVerifyOps = measure("engine verify", fastVerify, seconds);
+
+        System.out.printf("create: x%.1f, verify: x%.1f%n", fastCreateOps / jjwtCreateOps, fastVerifyOps / jjwtVerifyOps);
+    }
+
+    private static double measure(String name, IntConsumer op, int seconds) {
+        run(op, TimeUnit.SECONDS.toNanos(seconds));
+        long[] result = run(op, TimeUnit.SECONDS.toNanos(seconds));
+        double opsPerSec = result[0] / (result[1] / 1e9);
+        System.out.printf("%s: %,12.0f ops/s%n", name, opsPerSec);
+        return opsPerSec;
+    }
+
+    private static long[] run(IntConsumer op, long nanos) {
+        long start = System.nanoTime();
+        long deadline = start + nanos;
+        long ops = 0;
+        while (System.nanoTime() < deadline) {
+            for (int i = 0; i < 256; i++) {
+                op.accept((int) ops++);
+            }
+        }
+        return new long[]{ops, System.nanoTime() - start};
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.custom_protect.jwt;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ * {@link JwtUtils} с включённым быстрым путём ({@code jwt.fast-path=true}).
+ */
+class JwtUtilsTest {
+
+    private static final String SECRET = "your-very-secure-secret-key-here-32-characters-minimum";
+    private static final SecretKey KEY = Keys.hmacShaKeyFor(SECRET.getBytes(StandardCharsets.UTF_8));
+
+    @Test
+    void fastPathIsUsedForOwnTokens() {
+        JwtUtils jwtUtils = fastPath(3_600_000);
+
+        String token = jwtUtils.createToken("roma");
+
+        assertThat(ReflectionTestUtils.getField(jwtUtils, "engine")).isNotNull();
+        assertThat(jwtUtils.verify(token)).get().extracting(JwtUtils.TokenClaims::subject).isEqualTo("roma");
+    }
+
+    @Test
+    void expiredTokenIsRejected() {
+        JwtUtils expired = fastPath(-5_000);
+
+        assertThat(expired.verify(expired.createToken("roma"))).isEmpty();
+    }
+
+    @Test
+    void jjwtIssuedTokenIsAccepted() {
+        long now = System.currentTimeMillis();
+        String token = Jwts.builder()
+                .setSubject("roma")
+                .setIssuedAt(new Date(now))
+                .setExpiration(new Date(now + 60_000))
+                .signWith(KEY, SignatureAlgorithm.HS256)
+                .compact();
+
+        JwtUtils.TokenClaims claims = fastPath(3_600_000).verify(token).orElseThrow();
+
+        assertThat(claims.subject()).isEqualTo("roma");
+        assertThat(claims.expiresAtSeconds()).isEqualTo((now + 60_000) / 1000);
+    }
+
+    @Test
+    void tokensOfOtherShapeFallBackToJjwt() {
+        JwtUtils jwtUtils = fastPath(3_600_000);
+        long now = System.currentTimeMillis();
+
+        String otherHeader = Jwts.builder()
+                .setHeaderParam("typ", "JWT")
+                .setSubject("roma")
+                .setExpiration(new Date(now + 60_000))
+                .signWith(KEY, SignatureAlgorithm.HS256)
+                .compact();
+        String extraClaim = Jwts.builder()
+                .setSubject("roma")
+                .claim("scope", "read")
+                .setExpiration(new Date(now + 60_000))
+                .signWith(KEY, SignatureAlgorithm.HS256)
+                .compact();
+        String expiredOtherHeader = Jwts.builder()
+                .setHeaderParam("typ", "JWT")
+                .setSubject("roma")
+                .setExpiration(new Date(now - 60_000))
+                .signWith(KEY, SignatureAlgorithm.HS256)
+                .compact();
+
+        assertThat(jwtUtils.verify(otherHeader)).get().extracting(JwtUtils.TokenClaims::subject).isEqualTo("roma");
+        assertThat(jwtUtils.verify(extraClaim)).get().extracting(JwtUtils.TokenClaims::subject).isEqualTo("roma");
+        assertThat(jwtUtils.verify(expiredOtherHeader)).isEmpty();
+        assertThat(jwtUtils.verify("not-a-jwt")).isEmpty();
+    }
+
+    private static JwtUtils fastPath(long expirationMs) {
+        JwtUtils jwtUtils = new JwtUtils();
+        ReflectionTestUtils.setField(jwtUtils, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtils, "jwtExpiration", expirationMs);
+        ReflectionTestUtils.setField(jwtUtils, "fastPath", true);
+        jwtUtils.init();
+        return jwtUtils;
+    }
+}
@@ -0,0 +1,294 @@
+package com.example.custom_protect.loadtest;
+
+import com.example.custom_protect.Application;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Нагрузочный генератор с замкнутым циклом: каждый поток ждёт ответа перед следующим запросом.
+ * Поднимает приложение на H2 (если не задан {@code load.base-url}), регистрирует пользователей
+ * и гоняет смесь логинов и защищённых вызовов. Запуск: {@code ./mvnw -Ploadtest test-compile exec:java}.
+ *
+ * <p>Параметры (системные свойства):
+ * <ul>
+ *     <li>{@code load.users} — сколько пользователей зарегистрировать (100)</li>
+ *     <li>{@code load.concurrency} — число потоков-клиентов (32)</li>
+ *     <li>{@code load.warmup-seconds} / {@code load.duration-seconds} — прогрев и замер (5 / 30)</li>
+ *     <li>{@code load.login-share} — доля логинов (0.1)</li>
+ *     <li>{@code load.role-share} — доля вызовов с проверкой ролей среди защищённых (0.5)</li>
+ *     <li>{@code load.invalid-token-share} — доля защищённых вызовов с битым токеном (0.05)</li>
+ *     <li>{@code load.summary} — куда записать JSON-сводку (target/loadtest/summary.json)</li>
+ *     <li>{@code load.label} — метка сборки в сводке, для сравнения прогонов (local)</li>
+ * </ul>
+ * Java 17 не даёт виртуальных потоков, поэтому клиенты — пул обычных потоков размером {@code load.concurrency}.
+ */
+public final class LoadGenerator {
+
+    private static final String PASSWORD = "load-pwd";
+    private static final String INVALID_TOKEN = "eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiJub2JvZHkifQ.invalid";
+
+    private final ExecutorService clientExecutor;
+    private final HttpClient client;
+    private final String baseUrl;
+    private final Map<String, LatencyHistogram> histograms = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> errors = new LinkedHashMap<>();
+
+    private LoadGenerator(String baseUrl, int concurrency) {
+        this.baseUrl = baseUrl;
+        this.clientExecutor = Executors.newFixedThreadPool(Math.max(2, concurrency / 4));
+        this.client = HttpClient.newBuilder()
+                .executor(clientExecutor)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        for (String endpoint : List.of("login", "secure", "authenticated", "secure(invalid token)")) {
+            histograms.put(endpoint, new LatencyHistogram());
+            errors.put(endpoint, new AtomicLong());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("load.users", 100);
+        int concurrency = Integer.getInteger("load.concurrency", 32);
+        int warmupSeconds = Integer.getInteger("load.warmup-seconds", 5);
+        int durationSeconds = Integer.getInteger("load.duration-seconds", 30);
+        double loginShare = doubleProperty("load.login-share", 0.1);
+        double roleShare = doubleProperty("load.role-share", 0.5);
+        double invalidShare = doubleProperty("load.invalid-token-share", 0.05);
+        Path summaryPath = Path.of(System.getProperty("load.summary", "target/loadtest/summary.json"));
+
+        ConfigurableApplicationContext app = null;
+        String baseUrl = System.getProperty("load.base-url");
+        if (baseUrl == null) {
+            app = SpringApplication.run(Application.class,
+                    "--server.port=0",
+                    "--spring.profiles.active=dev",
+                    "--spring.jpa.show-sql=false",
+                    "--spring.h2.console.enabled=false",
+                    "--logging.level.root=WARN");
+            int port = ((ServletWebServerApplicationContext) app).getWebServer().getPort();
+            baseUrl = "http://localhost:" + port + "/api/v1";
+        }
+
+        int exitCode = 1;
+        LoadGenerator generator = null;
+        try {
+            generator = new LoadGenerator(baseUrl, concurrency);
+            List<User> pool = generator.prepareUsers(users, concurrency);
+            Mix mix = new Mix(loginShare, roleShare, invalidShare);
+
+            System.out.printf("Прогрев %d с...%n", warmupSeconds);
+            generator.run(pool, mix, concurrency, warmupSeconds);
+            generator.reset();
+
+            System.out.printf("Замер %d с, %d потоков, %d пользователей...%n", durationSeconds, concurrency, users);
+            long elapsedNanos = generator.run(pool, mix, concurrency, durationSeconds);
+
+            Map<String, Object> summary = generator.summary(elapsedNanos, users, concurrency, mix);
+            generator.print(elapsedNanos);
+            Files.createDirectories(summaryPath.toAbsolutePath().getParent());
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(summaryPath.toFile(), summary);
+            System.out.println("Сводка: " + summaryPath.toAbsolutePath());
+            exitCode = 0;
+        } catch (Exception e) {
+            // упавший прогон не должен выглядеть в CI успешным
+            System.err.println("Нагрузочный прогон прерван: " + e);
+            e.printStackTrace();
+        } finally {
+            if (generator != null) {
+                generator.clientExecutor.shutdownNow();
+            }
+            if (app != null) {
+                app.close();
+            }
+            System.exit(exitCode);
+        }
+    }
+
+    private record User(String name, String token) {
+    }
+
+    private record Mix(double loginShare, double roleShare, double invalidTokenShare) {
+    }
+
+    private List<User> prepareUsers(int count, int concurrency) throws Exception {
+        String runId = Long.toString(System.currentTimeMillis(), 36);
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<User>> futures = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String name = "load_" + runId + "_" + i;
+                futures.add(executor.submit(() -> {
+                    post("/auth/register", String.format(
+                            "{\"name\":\"%s\",\"password\":\"%s\",\"email\":\"%s@load.test\"}", name, PASSWORD, name));
+                    HttpResponse<String> login = post("/auth/login", credentials(name));
+                    if (login.statusCode() != 200) {
+                        throw new IllegalStateException("Не удалось залогинить " + name + ": HTTP " + login.statusCode());
+                    }
+                    return new User(name, login.body());
+                }));
+            }
+            List<User> users = new ArrayList<>(count);
+            for (Future<User> f : futures) {
+                users.add(f.get());
+            }
+            return users;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private long run(List<User> users, Mix mix, int concurrency, int seconds) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        long start = System.nanoTime();
+        long deadline = start + TimeUnit.SECONDS.toNanos(seconds);
+        for (int i = 0; i < concurrency; i++) {
+            executor.execute(() -> {
+                while (System.nanoTime() < deadline) {
+                    step(users, mix);
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        return System.nanoTime() - start;
+    }
+
+    private void step(List<User> users, Mix mix) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        User user = users.get(random.nextInt(users.size()));
+        if (random.nextDouble() < mix.loginShare()) {
+            call("login", 200, () -> post("/auth/login", credentials(user.name())));
+            return;
+        }
+        if (random.nextDouble() < mix.invalidTokenShare()) {
+            call("secure(invalid token)", 401, () -> get("/test/secure", INVALID_TOKEN));
+        } else if (random.nextDouble() < mix.roleShare()) {
+            call("authenticated", 200, () -> get("/test/authenticated", user.token()));
+        } else {
+            call("secure", 200, () -> get("/test/secure", user.token()));
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        HttpResponse<String> send() throws Exception;
+    }
+
+    private void call(String endpoint, int expectedStatus, Call call) {
+        long begin = System.nanoTime();
+        boolean ok;
+        try {
+            ok = call.send().statusCode() == expectedStatus;
+        } catch (Exception e) {
+            ok = false;
+        }
+        histograms.get(endpoint).record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - begin));
+        if (!ok) {
+            errors.get(endpoint).incrementAndGet();
+        }
+    }
+
+    private HttpResponse<String> post(String path, String json) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> get(String path, String token) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+
+    private static String credentials(String name) {
+        return String.format("{\"name\":\"%s\",\"password\":\"%s\"}", name, PASSWORD);
+    }
+
+    private void reset() {
+        histograms.replaceAll((k, v) -> new LatencyHistogram());
+        errors.values().forEach(e -> e.set(0));
+    }
+
+    private void print(long elapsedNanos) {
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%-24s %10s %8s %10s %9s %9s %9s %9s%n",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms");
+        histograms.forEach((endpoint, h) -> System.out.printf("%-24s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+                endpoint, h.count(), errors.get(endpoint).get(), h.count() / seconds,
+                h.valueAtPercentile(50) / 1000.0, h.valueAtPercentile(99) / 1000.0,
+                h.valueAtPercentile(99.9) / 1000.0, h.max() / 1000.0));
+    }
+
+    private Map<String, Object> summary(long elapsedNanos, int users, int concurrency, Mix mix) {
+        double seconds = elapsedNanos / 1e9;
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        long totalRequests = 0;
+        long totalErrors = 0;
+        for (Map.Entry<String, LatencyHistogram> e : histograms.entrySet()) {
+            LatencyHistogram h = e.getValue();
+            long errorCount = errors.get(e.getKey()).get();
+            totalRequests += h.count();
+            totalErrors += errorCount;
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("requests", h.count());
+            stats.put("errors", errorCount);
+            stats.put("throughputPerSec", h.count() / seconds);
+            stats.put("meanMicros", h.mean());
+            stats.put("p50Micros", h.valueAtPercentile(50));
+            stats.put("p99Micros", h.valueAtPercentile(99));
+            stats.put("p999Micros", h.valueAtPercentile(99.9));
+            stats.put("maxMicros", h.max());
+            endpoints.put(e.getKey(), stats);
+        }
+
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("users", users);
+        config.put("concurrency", concurrency);
+        config.put("durationSeconds", seconds);
+        config.put("loginShare", mix.loginShare());
+        config.put("roleShare", mix.roleShare());
+        config.put("invalidTokenShare", mix.invalidTokenShare());
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("timestamp", Instant.now().toString());
+        summary.put("label", System.getProperty("load.label", "local"));
+        summary.put("java", System.getProperty("java.version"));
+        summary.put("config", config);
+        summary.put("totalRequests", totalRequests);
+        summary.put("totalErrors", totalErrors);
+        summary.put("throughputPerSec", totalRequests / seconds);
+        summary.put("endpoints", endpoints);
+        return summary;
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+}
@@ -0,0 +1,41 @@
+package com.example.custom_protect.reactive;
+
+import com.example.custom_protect.audit.AuthAuditService;
+import com.example.custom_protect.dto.LoginRequest;
+import com.example.custom_protect.exception.AuthenticationException;
+import com.example.custom_protect.jwt.JwtUtils;
+import com.example.custom_protect.model.en.AuthEventType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveAuthServiceTest {
+
+    @Mock
+    private ReactiveUserRepository userRepository;
+
+    @Mock
+    private JwtUtils jwtUtils;
+
+    @Mock
+    private AuthAuditService auditService;
+
+    @Test
+    void unknownUserFailureIsAuditedWithoutBlocking() {
+        when(userRepository.findPasswordByName("ghost")).thenReturn(Mono.empty());
+        ReactiveAuthService service = new ReactiveAuthService(userRepository, jwtUtils, auditService, Schedulers.immediate());
+
+        assertThatThrownBy(() -> service.authenticate(new LoginRequest("ghost", "any")).block())
+                .isInstanceOf(AuthenticationException.class);
+
+        verify(auditService).publishNonBlocking(AuthEventType.LOGIN_FAILURE, "ghost", null);
+        verify(auditService, never()).publish(any(), any(), any());
+    }
+}
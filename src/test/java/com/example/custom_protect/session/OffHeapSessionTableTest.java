@@ -0,0 +1,150 @@
+package com.example.custom_protect.session;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.*;
+
+class OffHeapSessionTableTest {
+
+    @Test
+    void putGetRemove() {
+        OffHeapSessionTable table = new OffHeapSessionTable(16);
+
+        assertThat(table.put(1, 2, 42, 0b11, 1000)).isTrue();
+        assertThat(table.get(1, 2)).isEqualTo(new OffHeapSessionTable.Session(42, 0b11, 1000));
+        assertThat(table.get(2, 1)).isNull();
+
+        assertThat(table.put(1, 2, 42, 0b01, 2000)).isTrue();
+        assertThat(table.size()).isEqualTo(1);
+        assertThat(table.get(1, 2)).isEqualTo(new OffHeapSessionTable.Session(42, 0b01, 2000));
+
+        assertThat(table.remove(1, 2)).isTrue();
+        assertThat(table.remove(1, 2)).isFalse();
+        assertThat(table.get(1, 2)).isNull();
+        assertThat(table.size()).isZero();
+    }
+
+    @Test
+    void capacityIsRoundedUpToPowerOfTwo() {
+        assertThat(new OffHeapSessionTable(1000).capacity()).isEqualTo(1024);
+        assertThat(new OffHeapSessionTable(1024).capacity()).isEqualTo(1024);
+        assertThatThrownBy(() -> new OffHeapSessionTable(1)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void zeroKeyIsReserved() {
+        OffHeapSessionTable table = new OffHeapSessionTable(16);
+
+        assertThatThrownBy(() -> table.put(0, 0, 1, 1, 1)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(table.get(0, 0)).isNull();
+        assertThat(table.remove(0, 0)).isFalse();
+    }
+
+    @Test
+    void removalInsideProbeChainKeepsOtherKeysReachable() {
+        OffHeapSessionTable table = new OffHeapSessionTable(16);
+        // одинаковый младший long — один домашний слот, цепочка из пяти элементов
+        for (long hi = 1; hi <= 5; hi++) {
+            table.put(hi, 7, hi, 0, 100);
+        }
+
+        table.remove(2, 7);
+        table.remove(4, 7);
+
+        assertThat(table.get(1, 7).userId()).isEqualTo(1);
+        assertThat(table.get(3, 7).userId()).isEqualTo(3);
+        assertThat(table.get(5, 7).userId()).isEqualTo(5);
+        assertThat(table.get(2, 7)).isNull();
+        assertThat(table.size()).isEqualTo(3);
+    }
+
+    @Test
+    void chainWrappingAroundTableEndSurvivesRemoval() {
+        OffHeapSessionTable table = new OffHeapSessionTable(8);
+        // домашний слот 7: цепочка заворачивает в начало таблицы
+        for (long hi = 1; hi <= 4; hi++) {
+            table.put(hi, 7, hi, 0, 100);
+        }
+        table.put(9, 0x100, 9, 0, 100); // домашний слот 0, занят цепочкой — уходит дальше
+
+        table.remove(1, 7);
+
+        for (long hi = 2; hi <= 4; hi++) {
+            assertThat(table.get(hi, 7).userId()).isEqualTo(hi);
+        }
+        assertThat(table.get(9, 0x100).userId()).isEqualTo(9);
+    }
+
+    @Test
+    void putFailsWhenLoadLimitReached() {
+        OffHeapSessionTable table = new OffHeapSessionTable(8);
+        for (long hi = 1; hi <= 6; hi++) {
+            assertThat(table.put(hi, hi, hi, 0, 100)).isTrue();
+        }
+
+        assertThat(table.put(7, 7, 7, 0, 100)).isFalse();
+        assertThat(table.put(3, 3, 33, 0, 100)).as("замена существующего ключа не увеличивает размер").isTrue();
+        assertThat(table.get(3, 3).userId()).isEqualTo(33);
+    }
+
+    @Test
+    void removeIfDropsMatchingSlotsInOnePass() {
+        OffHeapSessionTable table = new OffHeapSessionTable(64);
+        for (long hi = 1; hi <= 40; hi++) {
+            table.put(hi, hi % 4, hi % 3, 0, hi); // много коллизий по домашнему слоту
+        }
+
+        int removed = table.removeIf((userId, roleMask, expiresAt) -> expiresAt <= 20 || userId == 0);
+
+        long expected = LongStream.rangeClosed(1, 40).filter(hi -> hi <= 20 || hi % 3 == 0).count();
+        assertThat(removed).isEqualTo(expected);
+        for (long hi = 1; hi <= 40; hi++) {
+            boolean kept = hi > 20 && hi % 3 != 0;
+            assertThat(table.get(hi, hi % 4) != null).as("ключ %d", hi).isEqualTo(kept);
+        }
+        assertThat(table.size()).isEqualTo(40 - removed);
+    }
+
+    @Test
+    void randomOperationsMatchHashMap() {
+        OffHeapSessionTable table = new OffHeapSessionTable(256);
+        Map<Long, Long> model = new HashMap<>();
+        List<Long> keys = new ArrayList<>();
+        Random random = new Random(38);
+
+        for (int op = 0; op < 50_000; op++) {
+            // узкое пространство ключей и младший long с малым разбросом — длинные цепочки
+            long hi = 1 + random.nextInt(300);
+            long lo = random.nextInt(16);
+            long key = hi * 16 + lo;
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    boolean fits = model.containsKey(key) || model.size() < 192;
+                    assertThat(table.put(hi, lo, op, 0, op)).isEqualTo(fits);
+                    if (fits) {
+                        model.put(key, (long) op);
+                        keys.add(key);
+                    }
+                }
+                case 1 -> assertThat(table.remove(hi, lo)).isEqualTo(model.remove(key) != null);
+                default -> {
+                    OffHeapSessionTable.Session s = table.get(hi, lo);
+                    Long expected = model.get(key);
+                    assertThat(s == null ? null : s.userId()).isEqualTo(expected);
+                }
+            }
+        }
+        assertThat(table.size()).isEqualTo(model.size());
+        for (long key : keys) {
+            OffHeapSessionTable.Session s = table.get(key / 16, key % 16);
+            assertThat(s == null ? null : s.userId()).isEqualTo(model.get(key));
+        }
+    }
+}
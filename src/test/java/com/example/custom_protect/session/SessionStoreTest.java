@@ -0,0 +1,62 @@
+package com.example.custom_protect.session;
+
+import com.example.custom_protect.model.en.RoleType;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SessionStoreTest {
+
+    private final SessionStore store = new SessionStore(16, 60_000);
+
+    @Test
+    void roleMaskUsesStableBits() {
+        // биты уже записаны в auth_changes.role_mask и читаются всеми узлами — менять нельзя
+        assertThat(RoleType.ROLE_USER.mask()).isEqualTo(0b001);
+        assertThat(RoleType.ROLE_ADMIN.mask()).isEqualTo(0b010);
+        assertThat(RoleType.ROLE_INTROSPECT.mask()).isEqualTo(0b100);
+        assertThat(Arrays.stream(RoleType.values()).mapToInt(RoleType::mask).distinct().count())
+                .isEqualTo(RoleType.values().length);
+
+        Set<RoleType> all = EnumSet.allOf(RoleType.class);
+        assertThat(SessionStore.roles(SessionStore.roleMask(all))).isEqualTo(all);
+    }
+
+    @Test
+    void dropUsersForgetsTheirNames() {
+        String first = store.newToken();
+        String second = store.newToken();
+        store.put(SessionStore.keyOf(first), 1, "first", 1, Instant.now().plusSeconds(60));
+        store.put(SessionStore.keyOf(second), 2, "second", 1, Instant.now().plusSeconds(60));
+
+        store.dropUsers(List.of(1L));
+
+        assertThat(store.knownUsers()).isEqualTo(1);
+        assertThat(store.lookup(first)).isEmpty();
+        assertThat(store.lookup(second)).get().extracting(SessionStore.Session::name).isEqualTo("second");
+    }
+
+    @Test
+    void sweepForgetsUsersWithoutLiveSessions() throws Exception {
+        String expiring = store.newToken();
+        String loggedOut = store.newToken();
+        String live = store.newToken();
+        store.put(SessionStore.keyOf(expiring), 1, "expiring", 1, Instant.now().plusSeconds(1));
+        store.put(SessionStore.keyOf(loggedOut), 2, "logged-out", 1, Instant.now().plusSeconds(60));
+        store.put(SessionStore.keyOf(live), 3, "live", 1, Instant.now().plusSeconds(60));
+        store.remove(SessionStore.keyOf(loggedOut));
+
+        Thread.sleep(1100);
+        store.sweepExpired();
+
+        assertThat(store.size()).isEqualTo(1);
+        assertThat(store.knownUsers()).isEqualTo(1);
+        assertThat(store.lookup(live)).get().extracting(SessionStore.Session::name).isEqualTo("live");
+    }
+}